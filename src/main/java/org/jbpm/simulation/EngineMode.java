@@ -0,0 +1,11 @@
+package org.jbpm.simulation;
+
+public enum EngineMode {
+    
+    // every simulated instance is executed as jBPM process instance inside its own KieSession
+    DROOLS,
+    // same as DROOLS but sessions are taken from pool and reset after every simulated instance
+    POOLED,
+    // paths are compiled into plans of node visits and executed directly from event calendar
+    NATIVE;
+}
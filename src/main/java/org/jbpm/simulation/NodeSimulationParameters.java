@@ -0,0 +1,146 @@
+package org.jbpm.simulation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jbpm.simulation.util.SimulationConstants;
+import org.jbpm.simulation.util.SimulationUtils;
+
+/**
+ * Typed and already converted simulation parameters of a single node. Built once per node from properties
+ * of <code>SimulationDataProvider</code> so sampling does not need to parse the raw properties again.
+ * All times are given in milliseconds, numeric values that were not set are <code>-1</code> regardless of the time unit.
+ */
+public final class NodeSimulationParameters {
+
+    public enum DistributionType {
+        RANDOM, UNIFORM, NORMAL, POISSON, EXACT, NONE;
+
+        public static DistributionType fromString(String distribution) {
+            if ("random".equalsIgnoreCase(distribution)) {
+                return RANDOM;
+            } else if ("uniform".equalsIgnoreCase(distribution)) {
+                return UNIFORM;
+            } else if ("normal".equalsIgnoreCase(distribution)) {
+                return NORMAL;
+            } else if ("poisson".equalsIgnoreCase(distribution)) {
+                return POISSON;
+            } else if ("exact".equalsIgnoreCase(distribution)) {
+                return EXACT;
+            }
+            return NONE;
+        }
+    }
+
+    public static final NodeSimulationParameters EMPTY = fromProperties(null);
+
+    private final DistributionType distributionType;
+    private final String distributionName;
+    private final TimeUnit timeUnit;
+
+    private final long min;
+    private final long max;
+    private final long mean;
+    private final long standardDeviation;
+    private final long duration;
+
+    private final double unitCost;
+    private final String currency;
+    private final int quantity;
+    private final long workingHours;
+    private final String workingHoursRange;
+    private final double probability;
+
+    private NodeSimulationParameters(Map<String, Object> properties) {
+        this.distributionName = (String) properties.get(SimulationConstants.DISTRIBUTION_TYPE);
+        this.distributionType = DistributionType.fromString(distributionName);
+        this.timeUnit = SimulationUtils.getTimeUnit(properties);
+
+        // values are truncated in their own time unit first as it was always done by time generators
+        this.min = toMillis(properties.get(SimulationConstants.MIN));
+        this.max = toMillis(properties.get(SimulationConstants.MAX));
+        this.mean = toMillis(properties.get(SimulationConstants.MEAN));
+        this.standardDeviation = toMillis(properties.get(SimulationConstants.STANDARD_DEVIATION));
+        this.duration = toMillis(properties.get("duration"));
+
+        this.unitCost = SimulationUtils.asDouble(properties.get(SimulationConstants.COST_PER_TIME_UNIT));
+        this.currency = (String) properties.get(SimulationConstants.CURRENCY);
+        this.quantity = (int) SimulationUtils.asDouble(properties.get(SimulationConstants.STAFF_AVAILABILITY));
+        this.workingHours = (long) SimulationUtils.asDouble(properties.get(SimulationConstants.WORKING_HOURS));
+        this.workingHoursRange = (String) properties.get("working.hours.range");
+        this.probability = SimulationUtils.asDouble(properties.get(SimulationConstants.PROBABILITY));
+    }
+
+    public static NodeSimulationParameters fromProperties(Map<String, Object> properties) {
+        if (properties == null) {
+            properties = Collections.emptyMap();
+        }
+        return new NodeSimulationParameters(properties);
+    }
+
+    private long toMillis(Object value) {
+        if (value == null) {
+            return -1;
+        }
+        long converted = (long) SimulationUtils.asDouble(value);
+
+        return TimeUnit.MILLISECONDS.convert(converted, timeUnit);
+    }
+
+    public DistributionType getDistributionType() {
+        return distributionType;
+    }
+
+    public String getDistributionName() {
+        return distributionName;
+    }
+
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public double getUnitCost() {
+        return unitCost;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getWorkingHours() {
+        return workingHours;
+    }
+
+    public String getWorkingHoursRange() {
+        return workingHoursRange;
+    }
+
+    public double getProbability() {
+        return probability;
+    }
+}
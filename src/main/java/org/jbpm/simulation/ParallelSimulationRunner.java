@@ -0,0 +1,123 @@
+package org.jbpm.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jbpm.simulation.impl.BPMN2SimulationDataProvider;
+import org.jbpm.simulation.impl.DefinitionsCache;
+import org.jbpm.simulation.impl.ParsedProcessModel;
+import org.jbpm.simulation.impl.ReplicationResult;
+import org.jbpm.simulation.impl.ReplicationSimulationRepository;
+import org.jbpm.simulation.impl.ReplicationSummary;
+import org.jbpm.simulation.impl.SimulationPath;
+import org.jbpm.simulation.impl.time.RandomStreams;
+
+/**
+ * Runs independent replications of the same simulation on a thread pool. Process definition is parsed
+ * and its paths are found once, each replication gets its own context and repository, results
+ * are merged into a <code>ReplicationSummary</code> once all replications are done.
+ */
+public class ParallelSimulationRunner {
+
+    private ExecutorService executor;
+    private boolean ownExecutor;
+    private EngineMode mode = EngineMode.NATIVE;
+    private double confidenceLevel = 0.95;
+    private Long seed;
+    
+    public ParallelSimulationRunner() {
+        this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+        this.ownExecutor = true;
+    }
+    
+    public ParallelSimulationRunner(ExecutorService executor) {
+        this.executor = executor;
+    }
+    
+    public ReplicationSummary runReplications(final String processId, final String bpmn2Container, 
+            final int numberOfAllInstances, final long interval, int replications) {
+        
+        // every replication gets independent substream of the master seed
+        final long masterSeed = seed != null ? seed.longValue() : RandomStreams.randomSeed();
+        
+        // process model is not thread safe, find paths once and share only the immutable results
+        ParsedProcessModel model = DefinitionsCache.getInstance().get(bpmn2Container);
+        final SimulationDataProvider provider;
+        final List<SimulationPath> paths;
+        synchronized (model) {
+            provider = new BPMN2SimulationDataProvider(model);
+            paths = SimulationRunner.findPaths(model, provider);
+        }
+        
+        List<Future<ReplicationResult>> futures = new ArrayList<Future<ReplicationResult>>();
+        for (int i = 0; i < replications; i++) {
+            final RandomStreams randomStreams = new RandomStreams(masterSeed, i);
+            futures.add(executor.submit(new Callable<ReplicationResult>() {
+
+                public ReplicationResult call() throws Exception {
+                    ReplicationSimulationRepository repo = new ReplicationSimulationRepository();
+                    SimulationRunner.runSimulation(processId, bpmn2Container, provider, paths, numberOfAllInstances, interval, 
+                            mode, repo, randomStreams, null);
+                    
+                    return repo.getResult();
+                }
+            }));
+        }
+        
+        List<ReplicationResult> results = new ArrayList<ReplicationResult>();
+        try {
+            for (Future<ReplicationResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for simulation replications", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Simulation replication failed", e.getCause());
+        } finally {
+            for (Future<ReplicationResult> future : futures) {
+                future.cancel(true);
+            }
+        }
+        
+        ReplicationSummary summary = new ReplicationSummary(results, confidenceLevel);
+        summary.setMasterSeed(masterSeed);
+        
+        return summary;
+    }
+    
+    public void shutdown() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    public EngineMode getMode() {
+        return mode;
+    }
+
+    public void setMode(EngineMode mode) {
+        this.mode = mode;
+    }
+
+    public double getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public void setConfidenceLevel(double confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+}
@@ -1,7 +1,10 @@
 package org.jbpm.simulation;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.UUID;
 
@@ -17,7 +20,14 @@ public class PathContext {
         TEMP;
     }
 
-    private Set<FlowElement> pathElements = new HashSet<FlowElement>();
+    // elements are kept as bits of their ids, cloning a path is then just array copy
+    private final PathElementIndex elementIndex;
+    private BitSet pathElements = new BitSet();
+    // order independent sum of element hashes, kept up to date as elements are added and removed
+    private long pathHash;
+    // sum of logs of element probabilities, so it can be updated on removal as well
+    private double pathLogProbability;
+    private Set<FlowElement> pathElementsView;
     private Type type;
     private boolean canBeFinished = true;
     private boolean locked = false;
@@ -34,39 +44,111 @@ public class PathContext {
     }
 
     public PathContext() {
-    	this.id = String.valueOf(UUID.randomUUID());
-    	this.setType(Type.ROOT);
+        this(Type.ROOT);
     }
     
     public PathContext(Type type) {
+        this(type, new PathElementIndex());
+    }
+    
+    public PathContext(Type type, PathElementIndex elementIndex) {
     	this.id = String.valueOf(UUID.randomUUID());
         this.setType(type);
+        this.elementIndex = elementIndex;
     }
     
     public void addPathElement(FlowElement element) {
         if (!locked) {
-            this.pathElements.add(element);
+            setElement(elementIndex.getId(element));
         }
     }
     
     public void removePathElement(FlowElement element) {
         if (!locked) {
-            this.pathElements.remove(element);
+            clearElement(elementIndex.findId(element));
         }
     }
     
     public void addAllPathElement(List<SequenceFlow> elements) {
         if (!locked) {
-            this.pathElements.addAll(elements);
+            for (SequenceFlow element : elements) {
+                setElement(elementIndex.getId(element));
+            }
         }
     }
     
+    public boolean containsPathElement(FlowElement element) {
+        int elementId = elementIndex.findId(element);
+        return elementId >= 0 && this.pathElements.get(elementId);
+    }
+    
+    /**
+     * Live view of the elements of this path, changes made through the view are not subject to locking.
+     */
     public Set<FlowElement> getPathElements() {
-        return this.pathElements;
+        if (this.pathElementsView == null) {
+            this.pathElementsView = new PathElementsView();
+        }
+        return this.pathElementsView;
     }
 
     public void setPathElements(Set<FlowElement> pathElements) {
-        this.pathElements = pathElements;
+        this.pathElements = new BitSet();
+        this.pathHash = 0;
+        this.pathLogProbability = 0;
+        for (FlowElement element : pathElements) {
+            setElement(elementIndex.getId(element));
+        }
+    }
+    
+    public PathElementIndex getElementIndex() {
+        return elementIndex;
+    }
+    
+    /**
+     * 64 bit hash of the path elements that does not depend on order in which they were added.
+     */
+    public long getPathHash() {
+        return pathHash;
+    }
+    
+    /**
+     * Log of probability of the path as product of probabilities of its elements given by the element index,
+     * 0 (probability 1) when the index has no element probabilities.
+     */
+    public double getPathLogProbability() {
+        return pathLogProbability;
+    }
+    
+    // contexts must share the same index
+    protected void copyPathElements(PathContext other) {
+        if (other.elementIndex != this.elementIndex) {
+            setPathElements(other.getPathElements());
+        } else {
+            this.pathElements = (BitSet) other.pathElements.clone();
+            this.pathHash = other.pathHash;
+            this.pathLogProbability = other.pathLogProbability;
+        }
+    }
+    
+    private boolean setElement(int elementId) {
+        if (this.pathElements.get(elementId)) {
+            return false;
+        }
+        this.pathElements.set(elementId);
+        this.pathHash += elementIndex.getHash(elementId);
+        this.pathLogProbability += elementIndex.getLogProbability(elementId);
+        return true;
+    }
+    
+    private boolean clearElement(int elementId) {
+        if (elementId < 0 || !this.pathElements.get(elementId)) {
+            return false;
+        }
+        this.pathElements.clear(elementId);
+        this.pathHash -= elementIndex.getHash(elementId);
+        this.pathLogProbability -= elementIndex.getLogProbability(elementId);
+        return true;
     }
 
     public boolean isCanBeFinished() {
@@ -121,4 +203,65 @@ public class PathContext {
     public void setPathId(String pathId) {
         this.pathId = pathId;
     }
+    
+    private class PathElementsView extends AbstractSet<FlowElement> {
+
+        @Override
+        public Iterator<FlowElement> iterator() {
+            return new Iterator<FlowElement>() {
+                
+                private int next = pathElements.nextSetBit(0);
+                private int last = -1;
+
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                public FlowElement next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    last = next;
+                    next = pathElements.nextSetBit(next + 1);
+                    return elementIndex.getElement(last);
+                }
+
+                public void remove() {
+                    if (last < 0) {
+                        throw new IllegalStateException();
+                    }
+                    clearElement(last);
+                    last = -1;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return pathElements.cardinality();
+        }
+        
+        @Override
+        public boolean contains(Object element) {
+            int elementId = elementIndex.findId(element);
+            return elementId >= 0 && pathElements.get(elementId);
+        }
+        
+        @Override
+        public boolean add(FlowElement element) {
+            return setElement(elementIndex.getId(element));
+        }
+        
+        @Override
+        public boolean remove(Object element) {
+            return clearElement(elementIndex.findId(element));
+        }
+        
+        @Override
+        public void clear() {
+            pathElements.clear();
+            pathHash = 0;
+            pathLogProbability = 0;
+        }
+    }
 }
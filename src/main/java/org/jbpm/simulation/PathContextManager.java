@@ -1,9 +1,6 @@
 package org.jbpm.simulation;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -11,13 +8,46 @@ import java.util.Stack;
 import org.eclipse.bpmn2.FlowElement;
 import org.eclipse.bpmn2.SequenceFlow;
 import org.jbpm.simulation.PathContext.Type;
+import org.jbpm.simulation.impl.PathProbabilityPruner;
 
 public class PathContextManager {
 
+    /**
+     * Explores branches handed over by the manager, possibly on another thread. Branch is a new manager
+     * that holds the context of the branch on top of its stack, exploring it means handling given target
+     * with the branch manager and completing it.
+     */
+    public interface BranchForker {
+
+        void fork(PathContextManager branch, FlowElement target);
+    }
+
     private Stack<PathContext> paths = new Stack<PathContext>();
     private List<PathContext> completePaths = new ArrayList<PathContext>();
     
     protected Map<String, FlowElement> catchingEvents = null;
+    
+    // shared by all contexts of the model so their elements can be copied as bit sets
+    private PathElementIndex elementIndex;
+    // when set complete paths are handed over instead of collected
+    private PathVisitor pathVisitor;
+    // when set only the most probable paths are explored
+    private PathProbabilityPruner pathPruner;
+    // when set branches of exclusive gateways can be explored separately
+    private BranchForker branchForker;
+    // number of elements being handled that still have work to do once their targets are handled
+    private int pendingWork;
+
+    public PathContextManager() {
+        this(new PathElementIndex());
+    }
+    
+    /**
+     * Manager that shares element index with other managers of the same model.
+     */
+    public PathContextManager(PathElementIndex elementIndex) {
+        this.elementIndex = elementIndex;
+    }
 
     public Map<String, FlowElement> getCatchingEvents() {
         return catchingEvents;
@@ -29,7 +59,7 @@ public class PathContextManager {
     
     public PathContext getContextFromStack() {
         if (this.paths.isEmpty()) {
-            this.paths.push(new PathContext());
+            this.paths.push(new PathContext(Type.ROOT, elementIndex));
         }
 
         return this.paths.peek();
@@ -76,11 +106,11 @@ public class PathContextManager {
     
     public PathContext cloneGiven(PathContext toclone) {
         
-        PathContext clone = new PathContext(Type.ACTIVE);
+        PathContext clone = new PathContext(Type.ACTIVE, elementIndex);
         clone.setCanBeFinishedNoIncrement(toclone.isCanBeFinished());
         clone.setCanBeFinishedCounter(toclone.getCanBeFinishedCounter());
         
-        clone.setPathElements(new HashSet<FlowElement>(toclone.getPathElements()));
+        clone.copyPathElements(toclone);
         
         this.paths.push(clone);
         return clone;
@@ -88,15 +118,115 @@ public class PathContextManager {
     
     public PathContext cloneGivenWithoutPush(PathContext toclone) {
         
-        PathContext clone = new PathContext(Type.ACTIVE);
+        PathContext clone = new PathContext(Type.ACTIVE, elementIndex);
         clone.setCanBeFinishedNoIncrement(toclone.isCanBeFinished());
         clone.setCanBeFinishedCounter(toclone.getCanBeFinishedCounter());
         
-        clone.setPathElements(new HashSet<FlowElement>(toclone.getPathElements()));
+        clone.copyPathElements(toclone);
         toclone.setType(Type.TEMP);
         return clone;
     }
     
+    public PathVisitor getPathVisitor() {
+        return pathVisitor;
+    }
+
+    public void setPathVisitor(PathVisitor pathVisitor) {
+        this.pathVisitor = pathVisitor;
+    }
+    
+    public PathProbabilityPruner getPathPruner() {
+        return pathPruner;
+    }
+
+    // must be set before traversal as paths keep their probability up to date as elements are added
+    public void setPathPruner(PathProbabilityPruner pathPruner) {
+        this.pathPruner = pathPruner;
+        this.elementIndex.setElementProbability(pathPruner);
+    }
+    
+    /**
+     * @return false if path extended with given element cannot be among the paths kept by the pruner
+     */
+    public boolean isPromising(PathContext context, FlowElement next) {
+        return pathPruner == null || pathPruner.isPromising(context, next);
+    }
+    
+    /**
+     * @return false if path extended with all given elements cannot be among the paths kept by the pruner
+     */
+    public boolean isPromising(PathContext context, List<? extends FlowElement> next) {
+        return pathPruner == null || pathPruner.isPromising(context, next);
+    }
+    
+    public BranchForker getBranchForker() {
+        return branchForker;
+    }
+
+    public void setBranchForker(BranchForker branchForker) {
+        this.branchForker = branchForker;
+    }
+    
+    /**
+     * Marks that element being handled has work to do after its targets are handled, such as handling
+     * its other outgoing flows or finalizing contexts it created. Branches cannot be forked until then
+     * as that work relies on the contexts the branches leave on the stack.
+     */
+    public void beginPendingWork() {
+        pendingWork++;
+    }
+    
+    public void endPendingWork() {
+        pendingWork--;
+    }
+    
+    /**
+     * @return true if branches leaving given context can be explored separately: no handled element has
+     * pending work, no other context on the stack collects elements and the pruner, which keeps the state
+     * of the whole search, is not used
+     */
+    public boolean canFork(PathContext context) {
+        if (branchForker == null || pathPruner != null || pendingWork > 0 || !context.isCanBeFinished()) {
+            return false;
+        }
+        for (PathContext ctx : this.paths) {
+            if (ctx != context && ctx.getType() == Type.ACTIVE) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Hands the branch that continues given context through given flow over to the forker. The branch
+     * gets its own copy of the stack, with contexts that no longer collect elements, and shares
+     * catching events and element index with this manager.
+     */
+    public void fork(PathContext contextAtThisNode, SequenceFlow flow) {
+        PathContextManager branch = new PathContextManager(elementIndex);
+        branch.catchingEvents = catchingEvents;
+        branch.branchForker = branchForker;
+        for (PathContext ctx : this.paths) {
+            // completed contexts are reported by this manager
+            if (ctx.getType() != Type.COMPLETED) {
+                PathContext copy = new PathContext(ctx.getType(), elementIndex);
+                copy.setCanBeFinishedNoIncrement(ctx.isCanBeFinished());
+                copy.setCanBeFinishedCounter(ctx.getCanBeFinishedCounter());
+                copy.setLocked(ctx.isLocked());
+                copy.copyPathElements(ctx);
+                branch.paths.push(copy);
+            }
+        }
+        PathContext separatePath = branch.cloneGiven(contextAtThisNode);
+        branch.addToPath(flow, separatePath);
+        
+        branchForker.fork(branch, flow.getTargetRef());
+    }
+    
+    public PathElementIndex getElementIndex() {
+        return elementIndex;
+    }
+    
     public Stack<PathContext> getPaths() {
         return this.paths;
     }
@@ -134,29 +264,35 @@ public class PathContextManager {
                 addToCompleted(context);
             }
         }
+        // best paths are known only once all paths were found
+        if (pathPruner != null && pathPruner.isBounded() && pathVisitor != null) {
+            for (PathContext context : pathPruner.getPaths()) {
+                pathVisitor.visit(context);
+            }
+        }
     }
     
     public List<PathContext> getCompletePaths() {
+        if (pathPruner != null && pathPruner.isBounded()) {
+            return pathPruner.getPaths();
+        }
         return completePaths;
     }
     
     protected void addToCompleted(PathContext context) {
         
-        //generate path id
-        StringBuffer pathIdElements = new StringBuffer();
-        List<FlowElement> list = new ArrayList<FlowElement>(context.getPathElements());
-        Collections.sort(list, new Comparator<FlowElement>() {
-    
-            public int compare(FlowElement o1, FlowElement o2) {
-                
-                return o1.getId().compareTo(o2.getId());
-            }
-        });
+        // generate path id, it depends only on the path elements so it is the same in every run and finder,
+        // traversals that end with the same elements share it
+        context.setPathId("Path" + Long.toHexString(context.getPathHash()));
         
-        for (FlowElement fe : list) {
-            pathIdElements.append(fe.getId());
+        if (pathPruner != null && (!pathPruner.accept(context) || pathPruner.isBounded())) {
+            // rejected or kept by the pruner until all paths are found
+            return;
+        }
+        if (pathVisitor != null) {
+            pathVisitor.visit(context);
+        } else {
+            this.completePaths.add(context);
         }
-        context.setPathId("Path"+pathIdElements.toString().hashCode());
-        this.completePaths.add(context);
     }
 }
@@ -0,0 +1,136 @@
+package org.jbpm.simulation;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.bpmn2.FlowElement;
+
+/**
+ * Assigns dense int ids to flow elements of a single model in order they are first seen, so path
+ * contexts of the same model can keep their elements in a bit set. Every element also gets 64 bit hash
+ * of its BPMN2 id that paths combine into their path id and, when element probabilities are set, log of its
+ * probability that paths sum up into their probability.
+ */
+public class PathElementIndex {
+
+    /**
+     * Probability of a path going through given element, 1 for elements that do not affect it.
+     */
+    public interface ElementProbability {
+
+        double getProbability(FlowElement element);
+    }
+
+    private Map<FlowElement, Integer> ids = new IdentityHashMap<FlowElement, Integer>();
+    private List<FlowElement> elements = new ArrayList<FlowElement>();
+    private long[] hashes = new long[64];
+    private ElementProbability elementProbability;
+    private double[] logProbabilities = new double[64];
+    private boolean readOnly;
+
+    public int getId(FlowElement element) {
+        Integer id = ids.get(element);
+        if (id == null) {
+            if (readOnly) {
+                throw new IllegalStateException("Element " + element.getId() + " was not indexed up front");
+            }
+            id = elements.size();
+            ids.put(element, id);
+            elements.add(element);
+            if (id == hashes.length) {
+                long[] grown = new long[hashes.length * 2];
+                System.arraycopy(hashes, 0, grown, 0, hashes.length);
+                hashes = grown;
+                double[] grownProbabilities = new double[hashes.length];
+                System.arraycopy(logProbabilities, 0, grownProbabilities, 0, logProbabilities.length);
+                logProbabilities = grownProbabilities;
+            }
+            hashes[id] = hash(element.getId());
+            logProbabilities[id] = logProbability(element);
+        }
+        return id;
+    }
+    
+    public long getHash(int id) {
+        if (id >= elements.size()) {
+            throw new IndexOutOfBoundsException("Index: " + id + ", Size: " + elements.size());
+        }
+        return hashes[id];
+    }
+
+    public double getLogProbability(int id) {
+        if (id >= elements.size()) {
+            throw new IndexOutOfBoundsException("Index: " + id + ", Size: " + elements.size());
+        }
+        return logProbabilities[id];
+    }
+    
+    public ElementProbability getElementProbability() {
+        return elementProbability;
+    }
+
+    /**
+     * Sets probabilities of the elements, needs to be set before paths of this index get any elements
+     * as probabilities of existing paths are not updated.
+     */
+    public void setElementProbability(ElementProbability elementProbability) {
+        this.elementProbability = elementProbability;
+        for (int i = 0; i < elements.size(); i++) {
+            logProbabilities[i] = logProbability(elements.get(i));
+        }
+    }
+    
+    private double logProbability(FlowElement element) {
+        return elementProbability == null ? 0 : Math.log(elementProbability.getProbability(element));
+    }
+
+    /**
+     * Stops assigning ids to new elements, index that is not modified any more can be read by several 
+     * threads at once.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return id of given element or -1 if the element was not indexed yet
+     */
+    public int findId(Object element) {
+        Integer id = ids.get(element);
+        return id == null ? -1 : id;
+    }
+
+    public FlowElement getElement(int id) {
+        return elements.get(id);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * 64 bit FNV-1a hash of given id with bits spread by MurmurHash3 finalizer so that hashes can be 
+     * summed without losing much of their entropy.
+     */
+    public static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        if (id != null) {
+            for (int i = 0; i < id.length(); i++) {
+                hash ^= id.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -2,10 +2,14 @@ package org.jbpm.simulation;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
 
 import org.eclipse.bpmn2.Definitions;
 import org.eclipse.bpmn2.FlowElementsContainer;
 import org.jbpm.simulation.impl.BPMN2PathFinderImpl;
+import org.jbpm.simulation.impl.ParallelPathFinder;
+import org.jbpm.simulation.impl.PathProbabilityPruner;
+import org.jbpm.simulation.impl.ParsedProcessModel;
 
 public class PathFinderFactory {
 
@@ -21,6 +25,10 @@ public class PathFinderFactory {
         return new BPMN2PathFinderImpl(bpmn2Defs);
     }
     
+    public static StreamingPathFinder getInstance(ParsedProcessModel model) {
+        return new BPMN2PathFinderImpl(model.getDefinitions());
+    }
+    
     public static PathFinder getInstance(InputStream bpmn2Stream) {
         return new BPMN2PathFinderImpl(bpmn2Stream);
     }
@@ -28,4 +36,22 @@ public class PathFinderFactory {
     public static PathFinder getInstance(FlowElementsContainer bpmn2Container) {
         return new BPMN2PathFinderImpl(bpmn2Container);
     }
+    
+    public static StreamingPathFinder getParallelInstance(Definitions bpmn2Defs, ExecutorService executor) {
+        return new ParallelPathFinder(bpmn2Defs, executor);
+    }
+    
+    public static StreamingPathFinder getParallelInstance(ParsedProcessModel model, ExecutorService executor) {
+        return new ParallelPathFinder(model, executor);
+    }
+    
+    /**
+     * Path finder that explores only the <code>maxPaths</code> most probable paths (0 for all) that are 
+     * at least <code>minProbability</code> probable.
+     */
+    public static StreamingPathFinder getInstance(ParsedProcessModel model, SimulationDataProvider provider, int maxPaths, double minProbability) {
+        BPMN2PathFinderImpl finder = new BPMN2PathFinderImpl(model.getDefinitions());
+        finder.setPathPruner(new PathProbabilityPruner(provider, maxPaths, minProbability));
+        return finder;
+    }
 }
@@ -0,0 +1,10 @@
+package org.jbpm.simulation;
+
+/**
+ * Receives paths found by <code>StreamingPathFinder</code> one by one as soon as they are complete, so they
+ * do not have to be kept in memory all at once.
+ */
+public interface PathVisitor {
+
+    void visit(PathContext path);
+}
@@ -0,0 +1,18 @@
+package org.jbpm.simulation;
+
+/**
+ * Listener that receives event attributes as plain values instead of event objects so no event has
+ * to be created for it. <code>onEvent</code> is never called for such listeners.
+ */
+public interface PrimitiveSimulationEventListener extends SimulationEventListener {
+
+    /**
+     * Called for every simulated node. Duration is the process duration for end events, wait time, 
+     * cost and utilization are given for human tasks only.
+     */
+    void onNodeEvent(Class<? extends SimulationEvent> eventType, String processId, long processInstanceId, 
+            String nodeId, String nodeName, long startTime, long endTime, long duration, long waitTime, 
+            double resourceCost, double resourceUtilization);
+
+    void onProcessInstanceEnd(String processId, long processInstanceId, long startTime, long endTime, String pathId);
+}
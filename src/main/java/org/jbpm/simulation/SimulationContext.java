@@ -3,10 +3,16 @@ package org.jbpm.simulation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.drools.core.time.SessionPseudoClock;
+import org.jbpm.simulation.impl.BPMN2SimulationDataProvider;
+import org.jbpm.simulation.impl.SimulationEventDispatcher;
 import org.jbpm.simulation.impl.SimulationPath;
 import org.jbpm.simulation.impl.ht.StaffPoolManager;
+import org.jbpm.simulation.impl.time.RandomStreams;
+import org.kie.api.definition.process.Node;
 
 public class SimulationContext {
 
@@ -23,6 +29,14 @@ public class SimulationContext {
     private List<String> executedNodes = new ArrayList<String>();
     private int loopLimit = 2;
     private long processInstanceId;
+    // generators are stateless apart of their random source so single instance per node is enough
+    private Map<String, TimeGenerator> timeGenerators = new ConcurrentHashMap<String, TimeGenerator>();
+    // raw properties of the data provider converted once per node
+    private Map<String, NodeSimulationParameters> simulationParameters = new ConcurrentHashMap<String, NodeSimulationParameters>();
+    // version of the data provider's indexes the caches above were built from
+    private volatile long dataVersion;
+    private RandomStreams randomStreams = new RandomStreams(RandomStreams.randomSeed());
+    private SimulationEventDispatcher eventDispatcher = new SimulationEventDispatcher();
     
     public static SimulationContext getContext() {
         return simulationContextThreadLocal.get();
@@ -40,6 +54,16 @@ public class SimulationContext {
         return registry;
     }
     
+    /**
+     * Stores event returned by the event dispatcher, that is <code>null</code> when the repository is
+     * not interested in the event.
+     */
+    public void storeEvent(SimulationEvent event) {
+        if (event != null) {
+            repository.storeEvent(event);
+        }
+    }
+    
     protected void setRepository(SimulationRepository repository) {
         this.repository = repository;
     }
@@ -70,6 +94,74 @@ public class SimulationContext {
 
     public void setDataProvider(SimulationDataProvider dataProvider) {
         this.dataProvider = dataProvider;
+        this.dataVersion = getDataVersion();
+        this.timeGenerators.clear();
+        this.simulationParameters.clear();
+    }
+    
+    // drops parameters and generators built from the scenario before the provider was rebuilt
+    private void checkDataVersion() {
+        long current = getDataVersion();
+        if (current != dataVersion) {
+            dataVersion = current;
+            timeGenerators.clear();
+            simulationParameters.clear();
+        }
+    }
+    
+    private long getDataVersion() {
+        if (dataProvider instanceof BPMN2SimulationDataProvider) {
+            return ((BPMN2SimulationDataProvider) dataProvider).getVersion();
+        }
+        return 0;
+    }
+    
+    public NodeSimulationParameters getSimulationParameters(Node node) {
+        checkDataVersion();
+        String key = getNodeKey(node);
+        NodeSimulationParameters parameters = simulationParameters.get(key);
+        if (parameters == null) {
+            parameters = NodeSimulationParameters.fromProperties(dataProvider.getSimulationDataForNode(node));
+            simulationParameters.put(key, parameters);
+        }
+        return parameters;
+    }
+    
+    public TimeGenerator getTimeGenerator(Node node) {
+        checkDataVersion();
+        String key = getNodeKey(node);
+        TimeGenerator timeGenerator = timeGenerators.get(key);
+        if (timeGenerator == null) {
+            timeGenerator = TimeGeneratorFactory.newTimeGenerator(getSimulationParameters(node), 
+                    randomStreams.newStream(key));
+            timeGenerators.put(key, timeGenerator);
+        }
+        return timeGenerator;
+    }
+    
+    /**
+     * Key of the node in per node caches and random streams, nodes without bpmn2 id are told apart by their node id.
+     */
+    public static String getNodeKey(Node node) {
+        String nodeId = (String) node.getMetaData().get("UniqueId");
+        return nodeId != null ? nodeId : "node:" + node.getId();
+    }
+    
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+    
+    public void setRandomStreams(RandomStreams randomStreams) {
+        this.randomStreams = randomStreams;
+        this.timeGenerators.clear();
+    }
+
+    public SimulationEventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    public void addEventListener(SimulationEventListener listener) {
+        this.eventDispatcher.addListener(listener);
     }
 
     public SessionPseudoClock getClock() {
@@ -0,0 +1,62 @@
+package org.jbpm.simulation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Declares which events a consumer is interested in. Criteria that were not given accept everything,
+ * an event must match all given criteria. Event types are matched by exact class. Events that do not 
+ * belong to a node (process instance end) never match node ids.
+ */
+public class SimulationEventFilter {
+
+    private Set<Class<? extends SimulationEvent>> eventTypes;
+    private Set<String> nodeIds;
+    private Set<String> processIds;
+
+    /**
+     * Filter that does not accept any event.
+     */
+    public static SimulationEventFilter none() {
+        SimulationEventFilter filter = new SimulationEventFilter();
+        filter.eventTypes = new HashSet<Class<? extends SimulationEvent>>();
+        return filter;
+    }
+
+    public SimulationEventFilter addEventType(Class<? extends SimulationEvent> eventType) {
+        if (eventTypes == null) {
+            eventTypes = new HashSet<Class<? extends SimulationEvent>>();
+        }
+        eventTypes.add(eventType);
+        return this;
+    }
+
+    public SimulationEventFilter addNodeId(String nodeId) {
+        if (nodeIds == null) {
+            nodeIds = new HashSet<String>();
+        }
+        nodeIds.add(nodeId);
+        return this;
+    }
+
+    public SimulationEventFilter addProcessId(String processId) {
+        if (processIds == null) {
+            processIds = new HashSet<String>();
+        }
+        processIds.add(processId);
+        return this;
+    }
+
+    public boolean accept(Class<? extends SimulationEvent> eventType, String processId, String nodeId) {
+        if (eventTypes != null && !eventTypes.contains(eventType)) {
+            return false;
+        }
+        if (processIds != null && !processIds.contains(processId)) {
+            return false;
+        }
+        if (nodeIds != null && (nodeId == null || !nodeIds.contains(nodeId))) {
+            return false;
+        }
+        return true;
+    }
+}
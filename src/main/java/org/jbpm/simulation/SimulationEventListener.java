@@ -0,0 +1,15 @@
+package org.jbpm.simulation;
+
+/**
+ * Receives events produced by the simulation engine as they are simulated, next to the repository.
+ * Events are only built when the repository or at least one listener is interested in them.
+ */
+public interface SimulationEventListener {
+
+    /**
+     * @return events the listener is interested in, <code>null</code> for all events
+     */
+    SimulationEventFilter getFilter();
+
+    void onEvent(SimulationEvent event);
+}
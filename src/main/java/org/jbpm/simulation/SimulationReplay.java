@@ -0,0 +1,110 @@
+package org.jbpm.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jbpm.simulation.impl.AsyncSimulationRepository;
+import org.jbpm.simulation.impl.EventLogReader;
+import org.jbpm.simulation.impl.PartitionedSimulationRepository;
+import org.jbpm.simulation.impl.SimulationEventCopier;
+
+/**
+ * Re-aggregates already stored raw events with different configuration (rules, statistics) without
+ * running the simulation again - no path finding, sessions or sampling are involved. Events are split
+ * by activity into partitions, every partition gets its own repository fed by its own thread so
+ * partitions are aggregated in parallel. Events of one activity keep their original order. Repositories
+ * receive copies of the given events so rules that modify events do not change the originals.
+ */
+public class SimulationReplay {
+
+    private int partitions = Runtime.getRuntime().availableProcessors();
+    private int bufferSize = AsyncSimulationRepository.DEFAULT_CAPACITY;
+
+    public <R extends SimulationRepository> List<R> replay(Iterable<? extends SimulationEvent> events, 
+            SimulationInfo simulationInfo, SimulationRepositoryFactory<R> factory) {
+        List<R> repositories = newRepositories(factory);
+        AsyncSimulationRepository[] pipelines = newPipelines(repositories);
+        try {
+            SimulationRepository dispatcher = newDispatcher(pipelines, simulationInfo);
+            SimulationEventCopier copier = new SimulationEventCopier();
+            for (SimulationEvent event : events) {
+                dispatcher.storeEvent(copier.copy(event));
+            }
+        } finally {
+            close(pipelines);
+        }
+        return repositories;
+    }
+
+    public <R extends SimulationRepository> List<R> replay(EventLogReader reader, 
+            SimulationInfo simulationInfo, SimulationRepositoryFactory<R> factory) {
+        List<R> repositories = newRepositories(factory);
+        AsyncSimulationRepository[] pipelines = newPipelines(repositories);
+        try {
+            reader.replay(newDispatcher(pipelines, simulationInfo));
+        } finally {
+            close(pipelines);
+        }
+        return repositories;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be at least 1 but was " + partitions);
+        }
+        this.partitions = partitions;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    protected <R extends SimulationRepository> List<R> newRepositories(SimulationRepositoryFactory<R> factory) {
+        List<R> repositories = new ArrayList<R>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            repositories.add(factory.newRepository(i));
+        }
+        return repositories;
+    }
+
+    protected AsyncSimulationRepository[] newPipelines(List<? extends SimulationRepository> repositories) {
+        AsyncSimulationRepository[] pipelines = new AsyncSimulationRepository[repositories.size()];
+        for (int i = 0; i < pipelines.length; i++) {
+            pipelines[i] = new AsyncSimulationRepository(bufferSize, AsyncSimulationRepository.DEFAULT_BATCH_SIZE, 
+                    AsyncSimulationRepository.Backpressure.BLOCK, repositories.get(i));
+        }
+        return pipelines;
+    }
+
+    protected SimulationRepository newDispatcher(AsyncSimulationRepository[] pipelines, SimulationInfo simulationInfo) {
+        PartitionedSimulationRepository dispatcher = new PartitionedSimulationRepository(pipelines);
+        if (simulationInfo != null) {
+            dispatcher.setSimulationInfo(simulationInfo);
+        }
+        return dispatcher;
+    }
+
+    private void close(AsyncSimulationRepository[] pipelines) {
+        RuntimeException failure = null;
+        for (AsyncSimulationRepository pipeline : pipelines) {
+            try {
+                pipeline.close();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.jbpm.simulation;
+
+/**
+ * Creates repositories, e.g. one per partition when events are replayed in parallel.
+ */
+public interface SimulationRepositoryFactory<R extends SimulationRepository> {
+
+    R newRepository(int partition);
+}
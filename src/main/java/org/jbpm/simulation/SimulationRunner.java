@@ -1,27 +1,26 @@
 package org.jbpm.simulation;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.drools.simulation.fluent.simulation.SimulationFluent;
 import org.drools.simulation.fluent.simulation.impl.DefaultSimulationFluent;
-import org.jbpm.simulation.converter.SimulationFilterPathFormatConverter;
+import org.jbpm.simulation.converter.SimulationPathCollector;
 import org.jbpm.simulation.impl.BPMN2SimulationDataProvider;
+import org.jbpm.simulation.impl.DefinitionsCache;
+import org.jbpm.simulation.impl.KieModuleCache;
+import org.jbpm.simulation.impl.KieModuleCache.CachedKieModule;
+import org.jbpm.simulation.impl.ParsedProcessModel;
 import org.jbpm.simulation.impl.SimulateProcessPathCommand;
 import org.jbpm.simulation.impl.SimulationPath;
 import org.jbpm.simulation.impl.WorkingMemorySimulationRepository;
-import org.kie.api.KieServices;
-import org.kie.api.builder.KieBuilder;
-import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.KieModule;
-import org.kie.api.builder.Message;
+import org.jbpm.simulation.impl.engine.KieSessionPool;
+import org.jbpm.simulation.impl.engine.NativeSimulationEngine;
+import org.jbpm.simulation.impl.engine.PooledSessionSimulationEngine;
+import org.jbpm.simulation.impl.time.RandomStreams;
+import org.kie.api.KieBase;
 import org.kie.api.builder.ReleaseId;
-import org.kie.api.builder.model.KieBaseModel;
-import org.kie.api.builder.model.KieModuleModel;
-import org.kie.api.builder.model.KieSessionModel;
-import org.kie.api.conf.EqualityBehaviorOption;
-import org.kie.api.conf.EventProcessingOption;
 import org.kie.api.io.Resource;
 import org.kie.api.io.ResourceType;
-import org.kie.api.runtime.conf.ClockTypeOption;
 import org.kie.internal.command.World;
 import org.kie.internal.io.ResourceFactory;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
@@ -36,28 +35,130 @@ public class SimulationRunner {
     
     public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, boolean runRules, String... rules) {
         
+        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, runRules, EngineMode.DROOLS, rules);
+    }
+    
+    public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, boolean runRules, EngineMode mode, String... rules) {
+        
         Resource[] resources = new Resource[rules.length];
         for (int i = 0; i < rules.length; i++) {
             resources[i] = ResourceFactory.newClassPathResource(rules[i]);
         }
         
-        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, runRules, resources);
+        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, runRules, mode, resources);
     }
     
     public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, boolean runRules, Resource... rules) {
         
-        SimulationContext context = SimulationContextFactory.newContext(new BPMN2SimulationDataProvider(bpmn2Container), new WorkingMemorySimulationRepository(runRules, rules));
-        SimulationDataProvider provider = context.getDataProvider();
+        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, runRules, EngineMode.DROOLS, rules);
+    }
+    
+    public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, boolean runRules, EngineMode mode, Resource... rules) {
+        
+        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, mode, new WorkingMemorySimulationRepository(runRules, rules));
+    }
+    
+    public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, EngineMode mode, SimulationRepository repository) {
+        
+        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, mode, repository, null);
+    }
+    
+    public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, EngineMode mode, 
+            SimulationRepository repository, RandomStreams randomStreams) {
+        
+        return runSimulation(processId, bpmn2Container, numberOfAllInstances, interval, mode, repository, randomStreams, null);
+    }
+    
+    /**
+     * Runs simulation that notifies given listeners about simulated events, only events accepted by 
+     * <code>repositoryFilter</code> (all when <code>null</code>) are stored in the repository.
+     */
+    public static SimulationRepository runSimulation(String processId, String bpmn2Container, int numberOfAllInstances, long interval, EngineMode mode, 
+            SimulationRepository repository, RandomStreams randomStreams, SimulationEventFilter repositoryFilter, SimulationEventListener... listeners) {
+        
+        // parse once and share the model between data provider and path finder
+        ParsedProcessModel model = DefinitionsCache.getInstance().get(bpmn2Container);
+        
+        SimulationDataProvider provider = null;
+        List<SimulationPath> paths = null;
+        synchronized (model) {
+            provider = new BPMN2SimulationDataProvider(model);
+            paths = findPaths(model, provider);
+        }
+        
+        return runSimulation(processId, bpmn2Container, provider, paths, numberOfAllInstances, interval, mode, 
+                repository, randomStreams, repositoryFilter, listeners);
+    }
+    
+    /**
+     * Finds simulation paths ordered from the most probable one, caller must hold the model's monitor.
+     * Instances are spread over all paths by their probability so all of them are kept and sorted, memory
+     * needed grows with the number of paths though only their ids are kept and not their path contexts.
+     */
+    static List<SimulationPath> findPaths(ParsedProcessModel model, SimulationDataProvider provider) {
+        StreamingPathFinder finder = PathFinderFactory.getInstance(model);
+        
+        // paths are converted as they are found so their contexts are not kept
+        SimulationPathCollector collector = new SimulationPathCollector(provider);
+        finder.findPaths(collector);
         
-        PathFinder finder = PathFinderFactory.getInstance(bpmn2Container);
+        return collector.getPaths();
+    }
+    
+    /**
+     * Runs simulation of already found paths, neither the provider nor the paths are modified so they
+     * can be shared by concurrent runs.
+     */
+    static SimulationRepository runSimulation(String processId, String bpmn2Container, SimulationDataProvider provider, 
+            List<SimulationPath> sharedPaths, int numberOfAllInstances, long interval, EngineMode mode, 
+            SimulationRepository repository, RandomStreams randomStreams, SimulationEventFilter repositoryFilter, SimulationEventListener... listeners) {
         
-        List<SimulationPath> paths = finder.findPaths(new SimulationFilterPathFormatConverter(provider));
+        // simulation stores path probability again, keep that on own copies
+        List<SimulationPath> paths = new ArrayList<SimulationPath>(sharedPaths.size());
+        for (SimulationPath path : sharedPaths) {
+            paths.add(new SimulationPath(path));
+        }
+        
+        SimulationContext context = SimulationContextFactory.newContext(provider, repository);
+        if (randomStreams != null) {
+            // seeded run - same streams produce the same results
+            context.setRandomStreams(randomStreams);
+        }
+        context.getEventDispatcher().setRepositoryFilter(repositoryFilter);
+        for (SimulationEventListener listener : listeners) {
+            context.addEventListener(listener);
+        }
         
         // TODO when introduced configurable start time that should be used instead of currentTimeMillis
         context.getRepository().setSimulationInfo(new SimulationInfo(System.currentTimeMillis(), processId, numberOfAllInstances, interval));
         
-        ReleaseId releaseId = createKJarWithMultipleResources("TestKbase",
+        CachedKieModule module = KieModuleCache.getInstance().get("TestKbase",
                 new String[]{bpmn2Container}, new ResourceType[]{ResourceType.BPMN2});
+        ReleaseId releaseId = module.getReleaseId();
+        
+        if (mode == EngineMode.NATIVE) {
+            KieBase kieBase = module.getKieBase();
+            
+            NativeSimulationEngine engine = new NativeSimulationEngine(processId, context, kieBase);
+            engine.simulate(paths, numberOfAllInstances, interval);
+            
+            context.getRepository().getSimulationInfo().setEndTime(context.getMaxEndTime());
+            
+            return context.getRepository();
+        } else if (mode == EngineMode.POOLED) {
+            KieSessionPool pool = new KieSessionPool(module.getKieContainer(), "TestKbase.KSession1", 1);
+            
+            PooledSessionSimulationEngine engine = new PooledSessionSimulationEngine(processId, context, pool);
+            try {
+                engine.simulate(paths, numberOfAllInstances, interval);
+            } finally {
+                pool.dispose();
+            }
+            
+            context.getRepository().getSimulationInfo().setEndTime(context.getMaxEndTime());
+            
+            return context.getRepository();
+        }
         
         SimulationFluent f = new DefaultSimulationFluent();
         // @formatter:off        
@@ -105,38 +206,7 @@ public class SimulationRunner {
     }
     
     protected static ReleaseId createKJarWithMultipleResources(String id, String[] resources, ResourceType[] types) {
-        KieServices ks = KieServices.Factory.get();
-        KieModuleModel kproj = ks.newKieModuleModel();
-        KieFileSystem kfs = ks.newKieFileSystem();
-
-        for (int i = 0; i < resources.length; i++) {
-            String res = resources[i];
-            String type = types[i].getDefaultExtension();
-
-            kfs.write("src/main/resources/" + id.replaceAll("\\.", "/")
-                    + "/org/test/res" + i + "." + type, res);
-        }
-
-        KieBaseModel kBase1 = kproj.newKieBaseModel(id)
-                .setEqualsBehavior(EqualityBehaviorOption.EQUALITY)
-                .setEventProcessingMode(EventProcessingOption.STREAM);
-
-        KieSessionModel ksession1 = kBase1
-                .newKieSessionModel(id + ".KSession1")
-                .setType(KieSessionModel.KieSessionType.STATEFUL)
-                .setClockType(ClockTypeOption.get("pseudo"));
-
-        kfs.writeKModuleXML(kproj.toXML());
-
-        KieBuilder kieBuilder = ks.newKieBuilder(kfs).buildAll();
-        if(!kieBuilder.getResults().getMessages().isEmpty()) {
-            for (Message msg : kieBuilder.getResults().getMessages()) {
-                System.out.println("[ERROR]" + msg.getText());
-            }
-            throw new RuntimeException("Error building knowledge base, see previous errors");
-        }
-
-        KieModule kieModule = kieBuilder.getKieModule();
-        return kieModule.getReleaseId();
+        
+        return KieModuleCache.getInstance().get(id, resources, types).getReleaseId();
     }
 }
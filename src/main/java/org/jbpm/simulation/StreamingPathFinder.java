@@ -0,0 +1,10 @@
+package org.jbpm.simulation;
+
+/**
+ * Path finder that can hand paths over one by one as soon as they are complete instead of collecting
+ * them, so they do not have to be kept in memory all at once.
+ */
+public interface StreamingPathFinder extends PathFinder {
+
+    void findPaths(PathVisitor visitor);
+}
@@ -2,30 +2,39 @@ package org.jbpm.simulation;
 
 import java.util.Map;
 
+import org.apache.commons.math.random.RandomData;
 import org.jbpm.simulation.impl.time.ExactTimeGenerator;
 import org.jbpm.simulation.impl.time.NormalTimeGenerator;
 import org.jbpm.simulation.impl.time.PoissonTimeGenerator;
+import org.jbpm.simulation.impl.time.RandomStreams;
 import org.jbpm.simulation.impl.time.RandomTimeGenerator;
 import org.jbpm.simulation.impl.time.UniformTimeGenerator;
-import org.jbpm.simulation.util.SimulationConstants;
 
 public class TimeGeneratorFactory {
 
     
     public static TimeGenerator newTimeGenerator(Map<String, Object> data) {
-        String distribution = (String) data.get(SimulationConstants.DISTRIBUTION_TYPE);
-         if ("random".equalsIgnoreCase(distribution)) {
-            return new RandomTimeGenerator(data);
-        } else if ("uniform".equalsIgnoreCase(distribution)) {
-            return new UniformTimeGenerator(data);
-        } else if ("normal".equalsIgnoreCase(distribution)) {
-            return new NormalTimeGenerator(data);
-        } else if ("poisson".equalsIgnoreCase(distribution)) {
-            return new PoissonTimeGenerator(data);
-        } else if ("exact".equalsIgnoreCase(distribution)) {
-            return new ExactTimeGenerator(data);
-        } else {
-            throw new RuntimeException("Unsupported distribution type " + distribution);
+        return newTimeGenerator(NodeSimulationParameters.fromProperties(data));
+    }
+    
+    public static TimeGenerator newTimeGenerator(NodeSimulationParameters parameters) {
+        return newTimeGenerator(parameters, RandomStreams.newRandomStream());
+    }
+    
+    public static TimeGenerator newTimeGenerator(NodeSimulationParameters parameters, RandomData random) {
+        switch (parameters.getDistributionType()) {
+        case RANDOM:
+            return new RandomTimeGenerator(parameters, random);
+        case UNIFORM:
+            return new UniformTimeGenerator(parameters, random);
+        case NORMAL:
+            return new NormalTimeGenerator(parameters, random);
+        case POISSON:
+            return new PoissonTimeGenerator(parameters, random);
+        case EXACT:
+            return new ExactTimeGenerator(parameters);
+        default:
+            throw new RuntimeException("Unsupported distribution type " + parameters.getDistributionName());
         }
     }
 }
@@ -32,26 +32,36 @@ public class SimulationFilterPathFormatConverter implements
         List<SimulationPath> allPaths = new ArrayList<SimulationPath>();
         
         for (PathContext context : paths) {
-            SimulationPath simPath = new SimulationPath();
-            simPath.setPathId(context.getPathId());
-            
-            for (FlowElement fe : context.getPathElements()) {
-                if (fe instanceof SequenceFlow) {
-                    simPath.addSequenceFlow(fe.getId());
-                } else if (fe instanceof BoundaryEvent) {
-                  simPath.addBoundaryEventId(fe.getId());  
-                } else {
-                    simPath.addActivity(fe.getId());
-                }
-            }
-            allPaths.add(simPath);
-            
-            // calcluate path probability if required
-            if (provider != null) {
-                provider.calculatePathProbability(simPath);
+            allPaths.add(convert(context));
+        }
+        sortByProbability(allPaths);
+        
+        return allPaths;
+    }
+    
+    public SimulationPath convert(PathContext context) {
+        SimulationPath simPath = new SimulationPath();
+        simPath.setPathId(context.getPathId());
+        
+        for (FlowElement fe : context.getPathElements()) {
+            if (fe instanceof SequenceFlow) {
+                simPath.addSequenceFlow(fe.getId());
+            } else if (fe instanceof BoundaryEvent) {
+              simPath.addBoundaryEventId(fe.getId());  
+            } else {
+                simPath.addActivity(fe.getId());
             }
         }
-        Collections.sort(allPaths, new Comparator<SimulationPath>() {
+        
+        // calcluate path probability if required
+        if (provider != null) {
+            provider.calculatePathProbability(simPath);
+        }
+        return simPath;
+    }
+    
+    static void sortByProbability(List<SimulationPath> paths) {
+        Collections.sort(paths, new Comparator<SimulationPath>() {
 
             public int compare(SimulationPath o1, SimulationPath o2) {
                 double difference = o1.getProbability() - o2.getProbability();
@@ -63,7 +73,5 @@ public class SimulationFilterPathFormatConverter implements
                 return 0;
             }
         });
-        
-        return allPaths;
     }
 }
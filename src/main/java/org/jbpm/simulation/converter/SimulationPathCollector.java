@@ -0,0 +1,46 @@
+package org.jbpm.simulation.converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jbpm.simulation.PathContext;
+import org.jbpm.simulation.PathVisitor;
+import org.jbpm.simulation.SimulationDataProvider;
+import org.jbpm.simulation.impl.SimulationPath;
+
+/**
+ * Converts paths to <code>SimulationPath</code>s as they are found so path contexts can be discarded 
+ * right away, produces the same result as <code>SimulationFilterPathFormatConverter</code>.
+ * Converted paths are still all kept, so memory grows with the number of paths; to keep only the most 
+ * probable ones use path finder that prunes paths (<code>PathFinderFactory</code> with maximum number of paths).
+ */
+public class SimulationPathCollector implements PathVisitor {
+
+    private SimulationFilterPathFormatConverter converter;
+    private List<SimulationPath> paths = new ArrayList<SimulationPath>();
+    private boolean sorted = true;
+
+    public SimulationPathCollector() {
+        this.converter = new SimulationFilterPathFormatConverter();
+    }
+
+    public SimulationPathCollector(SimulationDataProvider provider) {
+        this.converter = new SimulationFilterPathFormatConverter(provider);
+    }
+
+    public void visit(PathContext path) {
+        paths.add(converter.convert(path));
+        sorted = false;
+    }
+
+    /**
+     * @return collected paths ordered from the most probable one
+     */
+    public List<SimulationPath> getPaths() {
+        if (!sorted) {
+            SimulationFilterPathFormatConverter.sortByProbability(paths);
+            sorted = true;
+        }
+        return paths;
+    }
+}
@@ -22,6 +22,7 @@ public class ActivityElementHandler extends MainElementHandler {
         
         List<BoundaryEvent> bEvents = ((Activity) element).getBoundaryEventRefs();
         if (bEvents != null && bEvents.size() > 0) {
+            manager.beginPendingWork();
             boolean cancelActivity = false;
             for (BoundaryEvent bEvent : bEvents) {
                 manager.addToPath(bEvent, context);
@@ -35,6 +36,7 @@ public class ActivityElementHandler extends MainElementHandler {
                     handleAllPaths(outgoing, manager);
                 }
             }
+            manager.endPendingWork();
             return true;
         } else {
             HandlerRegistry.getHandler().handle(element, manager);
@@ -55,6 +57,11 @@ public class ActivityElementHandler extends MainElementHandler {
             if (!seqFlow.getSourceRef().equals(bEvent)) {
                 separatePath.removePathElement(bEvent);
             }
+            if (!manager.isPromising(separatePath, seqFlow)) {
+                // branch cannot produce any of the most probable paths
+                manager.clearCurrentContext();
+                continue;
+            }
             manager.addToPath(seqFlow, separatePath);
             super.handle(target, manager);
             separatePath.setLocked(true);
@@ -70,6 +77,9 @@ public class ActivityElementHandler extends MainElementHandler {
     
     protected void handleAllPaths(List<SequenceFlow> outgoing, PathContextManager manager) {
         PathContext context = manager.getContextFromStack();
+        if (!manager.isPromising(context, outgoing)) {
+            return;
+        }
         context.setCanBeFinished(false);
         int counter = 0;
         for (SequenceFlow seqFlow : outgoing) {
@@ -97,12 +107,13 @@ public class ActivityElementHandler extends MainElementHandler {
                 copy.remove(flow);
 
                 for (SequenceFlow copyFlow : copy) {
-                    manager.cloneGiven(manager.getContextFromStack());
-
-
                     andCombination = new ArrayList<SequenceFlow>();
                     andCombination.add(flow);
                     andCombination.add(copyFlow);
+                    if (!manager.isPromising(manager.getContextFromStack(), andCombination)) {
+                        continue;
+                    }
+                    manager.cloneGiven(manager.getContextFromStack());
 
                     handleAllPaths(andCombination, manager);
                 }
@@ -15,7 +15,7 @@ public class AdHocSubProcessElementHandler extends MainElementHandler {
         AdHocSubProcess adHoc = (AdHocSubProcess) element;
         
         List<FlowElement> flowElements = adHoc.getFlowElements();
-        
+        manager.beginPendingWork();
         for (FlowElement fElement : flowElements) {
             if (fElement instanceof Activity) {
                 if (((Activity) fElement).getIncoming().size() == 0) {
@@ -35,7 +35,7 @@ public class AdHocSubProcessElementHandler extends MainElementHandler {
                 }
             }
         }
-       
+        manager.endPendingWork();
        
         return true;
     }
@@ -13,11 +13,18 @@ public class DefaultElementHandler extends MainElementHandler {
         if (outgoing.size() == 0) {
             return false;
         }
+        boolean pending = outgoing.size() > 1;
+        if (pending) {
+            manager.beginPendingWork();
+        }
         for (SequenceFlow seqFlow : outgoing) {
             FlowElement target = seqFlow.getTargetRef();
             manager.addToPath(seqFlow, manager.getContextFromStack());
             super.handle(target, manager);
         }
+        if (pending) {
+            manager.endPendingWork();
+        }
         return true;
     }
 
@@ -25,6 +25,7 @@ public class EmbeddedSubprocessHandler extends MainElementHandler {
                 break;
             }
         }
+        manager.beginPendingWork();
         boolean canBeFinsihed = manager.getContextFromStack().isCanBeFinished();
         manager.getContextFromStack().setCanBeFinishedNoIncrement(false);
         super.handle(start, manager);
@@ -50,7 +51,7 @@ public class EmbeddedSubprocessHandler extends MainElementHandler {
                 }
             }
         }
-        
+        manager.endPendingWork();
         
         return true;
     }
@@ -18,6 +18,10 @@ public class EventElementHandler extends MainElementHandler {
         List<EventDefinition> throwDefinitions = getEventDefinitions(element);
     
         if (throwDefinitions != null && throwDefinitions.size() > 0) {
+            boolean pending = throwDefinitions.size() > 1;
+            if (pending) {
+                manager.beginPendingWork();
+            }
             for (EventDefinition def : throwDefinitions) {
                 String key = "";
                 if (def instanceof SignalEventDefinition) {
@@ -43,6 +47,9 @@ public class EventElementHandler extends MainElementHandler {
                     manager.finalizePath();
                 }
             }
+            if (pending) {
+                manager.endPendingWork();
+            }
             return true;
         } else {
             return false;
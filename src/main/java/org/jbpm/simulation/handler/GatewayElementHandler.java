@@ -25,10 +25,14 @@ public class GatewayElementHandler extends MainElementHandler {
             handleExclusiveGateway(getOutgoing(element));
             return true;
         } else if (element instanceof InclusiveGateway) {
+            manager.beginPendingWork();
             handleInclusiveGateway(getOutgoing(element));
+            manager.endPendingWork();
             return true;
         } else if (element instanceof ParallelGateway) {
+            manager.beginPendingWork();
             handleParallelGateway(getOutgoing(element));
+            manager.endPendingWork();
             return true;
         } else {
             throw new UnsupportedOperationException("Not supported element to handle " + element.eClass().getName());
@@ -39,12 +43,25 @@ public class GatewayElementHandler extends MainElementHandler {
     protected void handleExclusiveGateway(List<SequenceFlow> outgoing) {
         List<PathContext> locked = new ArrayList<PathContext>();
         PathContext context = manager.getContextFromStack();
+        boolean fork = manager.canFork(context);
         PathContext contextAtThisNode = manager.cloneGivenWithoutPush(context);
+        if (!fork) {
+            // next branches rely on the stack this one leaves
+            manager.beginPendingWork();
+        }
 
         for (SequenceFlow seqFlow : outgoing) {
             FlowElement target = seqFlow.getTargetRef();
             
-            if (!context.getPathElements().contains(target)) {
+            if (!context.containsPathElement(target)) {
+                if (!manager.isPromising(contextAtThisNode, seqFlow)) {
+                    // branch cannot produce any of the most probable paths
+                    continue;
+                }
+                if (fork) {
+                    manager.fork(contextAtThisNode, seqFlow);
+                    continue;
+                }
                 PathContext separatePath = manager.cloneGiven(contextAtThisNode);
                 manager.addToPath(seqFlow, separatePath);
                 super.handle(target, manager);
@@ -58,6 +75,9 @@ public class GatewayElementHandler extends MainElementHandler {
         for (PathContext ctx : locked) {
             ctx.setLocked(false);
         }
+        if (!fork) {
+            manager.endPendingWork();
+        }
     }
 
     protected void handleInclusiveGateway(List<SequenceFlow> outgoing) {
@@ -78,12 +98,13 @@ public class GatewayElementHandler extends MainElementHandler {
                 copy.remove(flow);
                 PathContext contextAtThisNode = manager.cloneGivenWithoutPush(manager.getContextFromStack());
                 for (SequenceFlow copyFlow : copy) {
-                    manager.cloneGiven(contextAtThisNode);
-
-
                     andCombination = new ArrayList<SequenceFlow>();
                     andCombination.add(flow);
                     andCombination.add(copyFlow);
+                    if (!manager.isPromising(contextAtThisNode, andCombination)) {
+                        continue;
+                    }
+                    manager.cloneGiven(contextAtThisNode);
 
                     handleParallelGateway(andCombination);
                 }
@@ -92,7 +113,9 @@ public class GatewayElementHandler extends MainElementHandler {
         manager.getContextFromStack().setType(Type.ROOT);
         // lastly cover and based - is single path that goes through all at the
         // same time
-        handleParallelGateway(outgoing);
+        if (manager.isPromising(manager.getContextFromStack(), outgoing)) {
+            handleParallelGateway(outgoing);
+        }
         manager.getContextFromStack().setType(currentType);
 
     }
@@ -31,6 +31,11 @@ public class MainElementHandler implements ElementHandler {
         List<SequenceFlow> outgoing = getOutgoing(element);
 
         if (outgoing != null && !outgoing.isEmpty()) {
+            // context of ad hoc element is cleared once it is handled
+            boolean adHoc = BPMN2Utils.isAdHoc(element);
+            if (adHoc) {
+                manager.beginPendingWork();
+            }
             boolean handled = false;
             if (element instanceof Gateway) {
                 Gateway gateway = ((Gateway) element);
@@ -50,8 +55,11 @@ public class MainElementHandler implements ElementHandler {
                 handled = HandlerRegistry.getHandler().handle(element, manager);
             }
             
-            if (!handled && BPMN2Utils.isAdHoc(element)) {
-                manager.clearCurrentContext();
+            if (adHoc) {
+                manager.endPendingWork();
+                if (!handled) {
+                    manager.clearCurrentContext();
+                }
             }
         } else {
             ElementHandler handelr = HandlerRegistry.getHandler(element);
@@ -0,0 +1,265 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.SimulationRepository;
+
+/**
+ * Decouples simulation from slow repositories (rule firing, export) by handing events over a bounded
+ * ring buffer to a consumer thread that delivers them in batches to one or more sink repositories.
+ * Every sink receives events in the order they were stored and always from the same thread, so sinks
+ * do not need to be thread safe. Results of sinks are complete only after <code>flush()</code> or
+ * <code>close()</code>.
+ */
+public class AsyncSimulationRepository implements SimulationRepository {
+
+    public enum Backpressure {
+        /** simulation waits until there is space in the buffer */
+        BLOCK,
+        /** events that do not fit into the buffer are dropped and counted */
+        DROP
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    // how often blocked producers check that the consumer is still able to take events
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    // marks end of the stream for the consumer
+    private static final SimulationEvent END = new EndOfStreamEvent();
+
+    private final SimulationRepository[] sinks;
+    private final BlockingQueue<SimulationEvent> buffer;
+    private final Backpressure backpressure;
+    private final int batchSize;
+    private final Thread consumer;
+
+    private SimulationInfo simulationInfo;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object deliveryLock = new Object();
+    private long delivered;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    public AsyncSimulationRepository(SimulationRepository... sinks) {
+        this(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, Backpressure.BLOCK, sinks);
+    }
+
+    public AsyncSimulationRepository(int capacity, int batchSize, Backpressure backpressure, SimulationRepository... sinks) {
+        if (sinks.length == 0) {
+            throw new IllegalArgumentException("At least one repository is required");
+        }
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be at least 1");
+        }
+        this.sinks = sinks;
+        this.buffer = new ArrayBlockingQueue<SimulationEvent>(capacity);
+        this.backpressure = backpressure;
+        this.batchSize = batchSize;
+
+        this.consumer = new Thread(new Runnable() {
+
+            public void run() {
+                consume();
+            }
+        }, "simulation-event-pipeline");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void storeEvent(SimulationEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Repository is already closed");
+        }
+        checkFailure();
+        if (backpressure == Backpressure.DROP) {
+            if (!buffer.offer(event)) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } else {
+            try {
+                while (!buffer.offer(event, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkFailure();
+                    checkConsumer();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while storing simulation event");
+            }
+        }
+        published.incrementAndGet();
+    }
+
+    /**
+     * Waits until all events stored so far are delivered to the sinks.
+     */
+    public void flush() {
+        long target = published.get();
+        synchronized (deliveryLock) {
+            while (delivered < target && failure == null && consumer.isAlive()) {
+                try {
+                    deliveryLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for simulation events to be delivered");
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Delivers all pending events and stops the consumer thread, sinks are not closed. Failure of
+     * a sink is rethrown after the consumer thread is stopped.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+        } finally {
+            stopConsumer();
+        }
+    }
+
+    private void stopConsumer() {
+        try {
+            // consumer that already failed would never take the end marker
+            while (consumer.isAlive()) {
+                if (buffer.offer(END, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public SimulationInfo getSimulationInfo() {
+        return this.simulationInfo;
+    }
+
+    public void setSimulationInfo(SimulationInfo simInfo) {
+        this.simulationInfo = simInfo;
+        for (SimulationRepository sink : sinks) {
+            sink.setSimulationInfo(simInfo);
+        }
+    }
+
+    public SimulationRepository[] getSinks() {
+        return sinks;
+    }
+
+    public long getPublishedEvents() {
+        return published.get();
+    }
+
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    public long getDeliveredEvents() {
+        synchronized (deliveryLock) {
+            return delivered;
+        }
+    }
+
+    protected void consume() {
+        List<SimulationEvent> batch = new ArrayList<SimulationEvent>(batchSize);
+        try {
+            while (true) {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, batchSize - 1);
+
+                boolean end = false;
+                int count = 0;
+                for (SimulationEvent event : batch) {
+                    if (event == END) {
+                        end = true;
+                        break;
+                    }
+                    for (SimulationRepository sink : sinks) {
+                        sink.storeEvent(event);
+                    }
+                    count++;
+                }
+                batch.clear();
+                synchronized (deliveryLock) {
+                    delivered += count;
+                    deliveryLock.notifyAll();
+                }
+                if (end) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure = e;
+            // nothing will take pending events any more, release producers waiting for space
+            buffer.clear();
+        } finally {
+            synchronized (deliveryLock) {
+                deliveryLock.notifyAll();
+            }
+        }
+    }
+
+    private void checkConsumer() {
+        if (!consumer.isAlive()) {
+            throw new IllegalStateException("Simulation events are no longer consumed");
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new RuntimeException("Error while delivering simulation events", failure);
+        }
+    }
+
+    private static class EndOfStreamEvent implements SimulationEvent {
+
+        public String getProcessId() {
+            return null;
+        }
+
+        public long getProcessInstanceId() {
+            return 0;
+        }
+
+        public String getMetric(String name) {
+            return null;
+        }
+
+        public long getStartTime() {
+            return 0;
+        }
+
+        public long getEndTime() {
+            return 0;
+        }
+
+        public UUID getUUID() {
+            return null;
+        }
+
+        public String getType() {
+            return null;
+        }
+    }
+}
@@ -29,13 +29,14 @@ import org.eclipse.bpmn2.SignalEventDefinition;
 import org.eclipse.bpmn2.StartEvent;
 import org.jbpm.simulation.PathContext;
 import org.jbpm.simulation.PathContextManager;
-import org.jbpm.simulation.PathFinder;
 import org.jbpm.simulation.PathFormatConverter;
+import org.jbpm.simulation.PathVisitor;
+import org.jbpm.simulation.StreamingPathFinder;
 import org.jbpm.simulation.handler.ElementHandler;
 import org.jbpm.simulation.handler.HandlerRegistry;
 import org.jbpm.simulation.util.BPMN2Utils;
 
-public class BPMN2PathFinderImpl implements PathFinder {
+public class BPMN2PathFinderImpl implements StreamingPathFinder {
 
     private PathContextManager manager;
     
@@ -82,32 +83,65 @@ public class BPMN2PathFinderImpl implements PathFinder {
         this.container = bpmn2Container;
     }
 
+    /**
+     * Restricts found paths to the most probable ones, <code>null</code> finds all paths.
+     */
+    public void setPathPruner(PathProbabilityPruner pathPruner) {
+        manager.setPathPruner(pathPruner);
+    }
+    
     public List<PathContext> findPaths() {
-        Map<String, FlowElement> catchingEvents = new HashMap<String, FlowElement>();
-        if (this.definitions != null) {
-            List<RootElement> rootElements = definitions.getRootElements();
-            for (RootElement root : rootElements) {
-                if (root instanceof Process) {
-                    Process process = (Process) root;
-                    readFlowElements(process, catchingEvents);
-                }
-            }
-        } else {
-            readFlowElements(container, catchingEvents);
-        }
+        traverse();
         
-        manager.setCatchingEvents(catchingEvents);
+        return manager.getCompletePaths();
+    }
+    
+    public void findPaths(PathVisitor visitor) {
+        manager.setPathVisitor(visitor);
+        try {
+            traverse();
+        } finally {
+            manager.setPathVisitor(null);
+        }
+    }
+    
+    protected void traverse() {
         ElementHandler handler = HandlerRegistry.getMainHandler();
         // show what was found
-        for (FlowElement fe : triggerElements) {
+        for (FlowElement fe : getTriggerElements()) {
             if (fe instanceof StartEvent || fe instanceof Activity || fe instanceof IntermediateCatchEvent) {
                 handler.handle(fe, manager);
             }
         }
         
         manager.complete();
-        
-        return manager.getCompletePaths();
+    }
+    
+    // elements that catch thrown events, keyed by event reference
+    Map<String, FlowElement> getCatchingEvents() {
+        getTriggerElements();
+        return manager.getCatchingEvents();
+    }
+    
+    // elements paths begin at, model is read on first use only
+    List<FlowElement> getTriggerElements() {
+        if (manager.getCatchingEvents() == null) {
+            Map<String, FlowElement> catchingEvents = new HashMap<String, FlowElement>();
+            if (this.definitions != null) {
+                List<RootElement> rootElements = definitions.getRootElements();
+                for (RootElement root : rootElements) {
+                    if (root instanceof Process) {
+                        Process process = (Process) root;
+                        readFlowElements(process, catchingEvents);
+                    }
+                }
+            } else {
+                readFlowElements(container, catchingEvents);
+            }
+            
+            manager.setCatchingEvents(catchingEvents);
+        }
+        return triggerElements;
     }
 
     protected static String streamToString(InputStream is) {
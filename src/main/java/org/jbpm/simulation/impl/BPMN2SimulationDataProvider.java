@@ -3,6 +3,7 @@ package org.jbpm.simulation.impl;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,33 +54,107 @@ import org.jboss.drools.RandomDistributionType;
 import org.jboss.drools.ResourceParameters;
 import org.jboss.drools.Scenario;
 import org.jboss.drools.UniformDistributionType;
+import org.jbpm.simulation.NodeSimulationParameters;
 import org.jbpm.simulation.SimulationDataProvider;
 import org.jbpm.simulation.util.BPMN2Utils;
-import org.jbpm.simulation.util.SimulationConstants;
 import org.kie.api.definition.process.Node;
 
 public class BPMN2SimulationDataProvider implements SimulationDataProvider {
+    
     private Definitions def;
+    // monitor held while walking the definitions, the shared model when given
+    private Object lock;
+    // incremented on every rebuild so simulation contexts know their cached parameters are stale
+    private volatile long version;
+    // immutable per element views of the default scenario and process definition, replaced as a whole on rebuild,
+    // callers get copies so they can still modify returned maps
+    private volatile Map<String, Map<String, Object>> simulationDataIndex;
+    private volatile Map<String, Map<String, Object>> processDataIndex;
+    private volatile Map<String, NodeSimulationParameters> parametersIndex;
 
     public BPMN2SimulationDataProvider(Definitions def) {
         this.def = def;
+        this.lock = def == null ? new Object() : def;
+        rebuildIndex();
+    }
+    
+    public BPMN2SimulationDataProvider(ParsedProcessModel model) {
+        this.def = model.getDefinitions();
+        this.lock = model;
+        rebuildIndex();
     }
     
     public BPMN2SimulationDataProvider(String bpmn2xml) {
-    	this.def = BPMN2Utils.getDefinitions(new ByteArrayInputStream(getBytes(bpmn2xml)));
+    	this(BPMN2Utils.getDefinitions(new ByteArrayInputStream(getBytes(bpmn2xml))));
     }
     
 	public BPMN2SimulationDataProvider(InputStream bpmn2Stream) {
-		this.def = BPMN2Utils.getDefinitions(bpmn2Stream);
+		this(BPMN2Utils.getDefinitions(bpmn2Stream));
 	}
     
     public Map<String, Object> getSimulationDataForNode(Node node) {
         String nodeId = (String) node.getMetaData().get("UniqueId");
         return getSimulationDataForNode(nodeId);
     }
+    /**
+     * @return new map with simulation properties of the element that the caller is free to modify
+     */
     public Map<String, Object> getSimulationDataForNode(
             String nodeId) {
-        Map<String, Object> properties = new HashMap<String, Object>();
+        Map<String, Object> properties = simulationDataIndex.get(nodeId);
+        if (properties == null) {
+            return new HashMap<String, Object>();
+        }
+        return new HashMap<String, Object>(properties);
+    }
+    
+    public NodeSimulationParameters getSimulationParametersForNode(Node node) {
+        return getSimulationParametersForNode((String) node.getMetaData().get("UniqueId"));
+    }
+    
+    public NodeSimulationParameters getSimulationParametersForNode(String nodeId) {
+        NodeSimulationParameters parameters = parametersIndex.get(nodeId);
+        if (parameters == null) {
+            return NodeSimulationParameters.EMPTY;
+        }
+        return parameters;
+    }
+    
+    /**
+     * Rebuilds per element indexes, needs to be invoked when scenario of the underlying definitions has changed.
+     * Definitions are walked while holding the monitor of the shared <code>ParsedProcessModel</code> (if given),
+     * simulation contexts using this provider drop their cached node parameters on next access.
+     */
+    public void rebuildIndex() {
+        Map<String, Map<String, Object>> simulationData = null;
+        Map<String, Map<String, Object>> processData = null;
+        synchronized (lock) {
+            simulationData = buildSimulationDataIndex();
+            processData = buildProcessDataIndex();
+        }
+        Map<String, NodeSimulationParameters> parameters = new HashMap<String, NodeSimulationParameters>();
+        for (Map.Entry<String, Map<String, Object>> entry : simulationData.entrySet()) {
+            parameters.put(entry.getKey(), NodeSimulationParameters.fromProperties(entry.getValue()));
+        }
+        
+        this.simulationDataIndex = simulationData;
+        this.processDataIndex = processData;
+        this.parametersIndex = parameters;
+        this.version++;
+    }
+    
+    /**
+     * @return number of index rebuilds, changes whenever simulation data of the nodes may have changed
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    protected Map<String, Map<String, Object>> buildSimulationDataIndex() {
+        Map<String, Map<String, Object>> index = new HashMap<String, Map<String, Object>>();
+        if (def == null) {
+            return index;
+        }
         Scenario scenario = getDefaultScenario(def);
         if(scenario != null) {
         	String baseTimeUnitValue = "";
@@ -91,70 +166,76 @@ public class BPMN2SimulationDataProvider implements SimulationDataProvider {
         	
         	if(scenario.getElementParameters() != null) {
         		for(ElementParameters eleType : scenario.getElementParameters()) {
-        			if(eleType.getElementId().equals(nodeId)) {
-        				if(eleType.getControlParameters() != null && eleType.getControlParameters().getProbability() != null) {
-        					FloatingParameterType valType = (FloatingParameterType) eleType.getControlParameters().getProbability().getParameterValue().get(0);
-                			properties.put("probability", valType.getValue());
+        			Map<String, Object> properties = index.get(eleType.getElementId());
+        			if (properties == null) {
+        			    properties = new HashMap<String, Object>();
+        			    index.put(eleType.getElementId(), properties);
+        			}
+        			if(eleType.getControlParameters() != null && eleType.getControlParameters().getProbability() != null) {
+        				FloatingParameterType valType = (FloatingParameterType) eleType.getControlParameters().getProbability().getParameterValue().get(0);
+            			properties.put("probability", valType.getValue());
+        			}
+        			if(eleType.getTimeParameters() != null) {
+        				if(eleType.getTimeParameters().getProcessingTime() != null) {
+        					Parameter processingTime = eleType.getTimeParameters().getProcessingTime();
+                			ParameterValue paramValue =  processingTime.getParameterValue().get(0);
+                			if(paramValue instanceof NormalDistributionType) {
+                				NormalDistributionType ndt = (NormalDistributionType) paramValue;
+                				properties.put("mean", ndt.getMean());
+                				properties.put("standarddeviation", ndt.getStandardDeviation());
+                				properties.put("distributiontype", "normal");
+                			} else if(paramValue instanceof UniformDistributionType) {
+                				UniformDistributionType udt = (UniformDistributionType) paramValue;
+                				properties.put("max", udt.getMax());
+                				properties.put("min", udt.getMin());
+                				properties.put("distributiontype", "uniform");
+                			} else if(paramValue instanceof RandomDistributionType) {
+                				RandomDistributionType rdt = (RandomDistributionType) paramValue;
+                				properties.put("max", rdt.getMax());
+                				properties.put("min", rdt.getMin());
+                				properties.put("distributiontype", "random");
+                			} else if(paramValue instanceof PoissonDistributionType) {
+                				PoissonDistributionType pdt = (PoissonDistributionType) paramValue;
+                				properties.put("mean", pdt.getMean());
+                				properties.put("distributiontype", "poisson");
+                			}
+                			if(eleType.getTimeParameters().getTimeUnit() != null) {
+                				properties.put("timeunit", eleType.getTimeParameters().getTimeUnit().getName());
+                			} else {
+                				properties.put("timeunit", baseTimeUnitValue);
+                			}
+                            if(eleType.getTimeParameters().getWaitTime() != null) {
+                                FloatingParameterType waittimeType = (FloatingParameterType) eleType.getTimeParameters().getWaitTime().getParameterValue().get(0);
+                                properties.put("waittime", waittimeType.getValue());
+                            }
         				}
-        				if(eleType.getTimeParameters() != null) {
-        					if(eleType.getTimeParameters().getProcessingTime() != null) {
-        						Parameter processingTime = eleType.getTimeParameters().getProcessingTime();
-                    			ParameterValue paramValue =  processingTime.getParameterValue().get(0);
-                    			if(paramValue instanceof NormalDistributionType) {
-                    				NormalDistributionType ndt = (NormalDistributionType) paramValue;
-                    				properties.put("mean", ndt.getMean());
-                    				properties.put("standarddeviation", ndt.getStandardDeviation());
-                    				properties.put("distributiontype", "normal");
-                    			} else if(paramValue instanceof UniformDistributionType) {
-                    				UniformDistributionType udt = (UniformDistributionType) paramValue;
-                    				properties.put("max", udt.getMax());
-                    				properties.put("min", udt.getMin());
-                    				properties.put("distributiontype", "uniform");
-                    			} else if(paramValue instanceof RandomDistributionType) {
-                    				RandomDistributionType rdt = (RandomDistributionType) paramValue;
-                    				properties.put("max", rdt.getMax());
-                    				properties.put("min", rdt.getMin());
-                    				properties.put("distributiontype", "random");
-                    			} else if(paramValue instanceof PoissonDistributionType) {
-                    				PoissonDistributionType pdt = (PoissonDistributionType) paramValue;
-                    				properties.put("mean", pdt.getMean());
-                    				properties.put("distributiontype", "poisson");
-                    			}
-                    			if(eleType.getTimeParameters().getTimeUnit() != null) {
-                    				properties.put("timeunit", eleType.getTimeParameters().getTimeUnit().getName());
-                    			} else {
-                    				properties.put("timeunit", baseTimeUnitValue);
-                    			}
-                                if(eleType.getTimeParameters().getWaitTime() != null) {
-                                    FloatingParameterType waittimeType = (FloatingParameterType) eleType.getTimeParameters().getWaitTime().getParameterValue().get(0);
-                                    properties.put("waittime", waittimeType.getValue());
-                                }
-        					}
+        			}
+        			if(eleType.getCostParameters() != null) {
+        				CostParameters costParams = eleType.getCostParameters();
+        				if(costParams.getUnitCost() != null) {
+        					DecimalParameterType unitCostVal = (DecimalParameterType) costParams.getUnitCost().getParameterValue().get(0);
+        					properties.put("unitcost", unitCostVal.getValue().toString()); 
         				}
-        				if(eleType.getCostParameters() != null) {
-        					CostParameters costParams = eleType.getCostParameters();
-        					if(costParams.getUnitCost() != null) {
-        						DecimalParameterType unitCostVal = (DecimalParameterType) costParams.getUnitCost().getParameterValue().get(0);
-        						properties.put("unitcost", unitCostVal.getValue().toString()); 
-        					}
-        					properties.put("currency", costParams.getCurrencyUnit() == null ? baseCurrencyUnitValue : costParams.getCurrencyUnit());
+        				properties.put("currency", costParams.getCurrencyUnit() == null ? baseCurrencyUnitValue : costParams.getCurrencyUnit());
+        			}
+        			if(eleType.getResourceParameters() != null) {
+        				ResourceParameters resourceParams = eleType.getResourceParameters();
+        				if(resourceParams.getQuantity() != null) {
+        					FloatingParameterType quantityVal = (FloatingParameterType) resourceParams.getQuantity().getParameterValue().get(0);
+	            			properties.put("quantity", quantityVal.getValue()); 
         				}
-        				if(eleType.getResourceParameters() != null) {
-        					ResourceParameters resourceParams = eleType.getResourceParameters();
-        					if(resourceParams.getQuantity() != null) {
-        						FloatingParameterType quantityVal = (FloatingParameterType) resourceParams.getQuantity().getParameterValue().get(0);
-    	            			properties.put("quantity", quantityVal.getValue()); 
-        					}
-        					if(resourceParams.getWorkinghours() != null) {
-        						FloatingParameterType workingHoursVal = (FloatingParameterType) resourceParams.getWorkinghours().getParameterValue().get(0);
-    	            			properties.put("workinghours", workingHoursVal.getValue()); 
-        					}
+        				if(resourceParams.getWorkinghours() != null) {
+        					FloatingParameterType workingHoursVal = (FloatingParameterType) resourceParams.getWorkinghours().getParameterValue().get(0);
+	            			properties.put("workinghours", workingHoursVal.getValue()); 
         				}
         			}
         		}
         	}
         }
-        return properties;
+        for (Map.Entry<String, Map<String, Object>> entry : index.entrySet()) {
+            entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+        }
+        return index;
     }
 
     protected FlowElement findElementInContainer(FlowElementsContainer container, String id) {
@@ -177,14 +258,14 @@ public class BPMN2SimulationDataProvider implements SimulationDataProvider {
     public double calculatePathProbability(SimulationPath path) {
         double probability = 100;
         for (String sequenceFlowId : path.getSequenceFlowsIds()) {
-            double transitionProbability = (Double) getSimulationDataForNode(sequenceFlowId).get(SimulationConstants.PROBABILITY);
+            double transitionProbability = getSimulationParametersForNode(sequenceFlowId).getProbability();
             if (transitionProbability > 0) {
                 probability = probability * (transitionProbability / 100);
             }
         }
         // calculate probability based on boundary events
         for (String sequenceFlowId : path.getBoundaryEventIds()) {
-            double transitionProbability = (Double) getSimulationDataForNode(sequenceFlowId).get(SimulationConstants.PROBABILITY);
+            double transitionProbability = getSimulationParametersForNode(sequenceFlowId).getProbability();
             if (transitionProbability > 0) {
                 probability = probability * (transitionProbability / 100);
             }
@@ -197,97 +278,121 @@ public class BPMN2SimulationDataProvider implements SimulationDataProvider {
     }
 
     public Map<String, Object> getProcessDataForNode(Node node) {
-
-        Map<String, Object> nodeProperties = new HashMap<String, Object>();
-        FlowElement flowElement = null;
-                List<RootElement> rootElements = def.getRootElements();
+        Map<String, Object> nodeProperties = processDataIndex.get((String) node.getMetaData().get("UniqueId"));
+        if (nodeProperties == null) {
+            nodeProperties = new HashMap<String, Object>();
+            nodeProperties.put("node.type", "unknown");
+            return nodeProperties;
+        }
+        return new HashMap<String, Object>(nodeProperties);
+    }
+    
+    protected Map<String, Map<String, Object>> buildProcessDataIndex() {
+        Map<String, Map<String, Object>> index = new HashMap<String, Map<String, Object>>();
+        if (def == null) {
+            return index;
+        }
+        List<RootElement> rootElements = def.getRootElements();
         for (RootElement root : rootElements) {
             if (root instanceof Process) {
-                flowElement = findElementInContainer((FlowElementsContainer) root, (String) node.getMetaData().get("UniqueId"));
+                indexContainer((FlowElementsContainer) root, index);
                 break;
             }
         }
+        return index;
+    }
+    
+    protected void indexContainer(FlowElementsContainer container, Map<String, Map<String, Object>> index) {
+        for (FlowElement fElement : container.getFlowElements()) {
+            // first match wins as with depth first search of the element by id
+            if (!index.containsKey(fElement.getId())) {
+                index.put(fElement.getId(), Collections.unmodifiableMap(buildProcessData(fElement)));
+            }
+            if (fElement instanceof FlowElementsContainer) {
+                indexContainer((FlowElementsContainer) fElement, index);
+            }
+        }
+    }
+    
+    protected Map<String, Object> buildProcessData(FlowElement flowElement) {
 
-        if (flowElement != null) {
-            if (flowElement instanceof ScriptTask) {
+        Map<String, Object> nodeProperties = new HashMap<String, Object>();
+        if (flowElement instanceof ScriptTask) {
 
-               nodeProperties.put("node.type", "ScriptTask");
-            } else if (flowElement instanceof BusinessRuleTask) {
+           nodeProperties.put("node.type", "ScriptTask");
+        } else if (flowElement instanceof BusinessRuleTask) {
 
-                nodeProperties.put("node.type", "BusinessRuleTask");
-            } else if (flowElement instanceof UserTask) {
+            nodeProperties.put("node.type", "BusinessRuleTask");
+        } else if (flowElement instanceof UserTask) {
 
-                nodeProperties.put("node.type", "UserTask");
-            } else if (flowElement instanceof SendTask) {
+            nodeProperties.put("node.type", "UserTask");
+        } else if (flowElement instanceof SendTask) {
 
-                nodeProperties.put("node.type", "SendTask");
-            } else if (flowElement instanceof ServiceTask) {
+            nodeProperties.put("node.type", "SendTask");
+        } else if (flowElement instanceof ServiceTask) {
 
-                nodeProperties.put("node.type", "ServiceTask");
-            } else if (flowElement instanceof ReceiveTask) {
+            nodeProperties.put("node.type", "ServiceTask");
+        } else if (flowElement instanceof ReceiveTask) {
 
-                nodeProperties.put("node.type", "ReceiveTask");
-            } else if (flowElement instanceof ManualTask) {
+            nodeProperties.put("node.type", "ReceiveTask");
+        } else if (flowElement instanceof ManualTask) {
 
-                nodeProperties.put("node.type", "ManualTask");
-            } else if (flowElement instanceof InclusiveGateway) {
+            nodeProperties.put("node.type", "ManualTask");
+        } else if (flowElement instanceof InclusiveGateway) {
 
-                nodeProperties.put("node.type", "InclusiveGateway");
-            } else if (flowElement instanceof ExclusiveGateway) {
+            nodeProperties.put("node.type", "InclusiveGateway");
+        } else if (flowElement instanceof ExclusiveGateway) {
 
-                nodeProperties.put("node.type", "ExclusiveGateway");
-            } else if (flowElement instanceof ParallelGateway) {
+            nodeProperties.put("node.type", "ExclusiveGateway");
+        } else if (flowElement instanceof ParallelGateway) {
 
-                nodeProperties.put("node.type", "ParallelGateway");
-            } else if (flowElement instanceof BoundaryEvent) {
-                BoundaryEvent boundaryEvent = (BoundaryEvent) flowElement;
-                List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
-                String eventDef = "";
+            nodeProperties.put("node.type", "ParallelGateway");
+        } else if (flowElement instanceof BoundaryEvent) {
+            BoundaryEvent boundaryEvent = (BoundaryEvent) flowElement;
+            List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
+            String eventDef = "";
 
-                if (defs != null && defs.size() > 0) {
-                    eventDef = getEventDefinitionAsString(defs.get(0));
-                }
+            if (defs != null && defs.size() > 0) {
+                eventDef = getEventDefinitionAsString(defs.get(0));
+            }
 
-                nodeProperties.put("node.type", "BoundaryEvent:"+eventDef);
-            } else if (flowElement instanceof IntermediateCatchEvent) {
-                IntermediateCatchEvent boundaryEvent = (IntermediateCatchEvent) flowElement;
-                List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
-                String eventDef = "";
+            nodeProperties.put("node.type", "BoundaryEvent:"+eventDef);
+        } else if (flowElement instanceof IntermediateCatchEvent) {
+            IntermediateCatchEvent boundaryEvent = (IntermediateCatchEvent) flowElement;
+            List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
+            String eventDef = "";
 
-                if (defs != null && defs.size() > 0) {
-                    eventDef = getEventDefinitionAsString(defs.get(0));
-                }
-                nodeProperties.put("node.type", "IntermediateCatchEvent:"+eventDef);
-            } else if (flowElement instanceof IntermediateThrowEvent) {
-                IntermediateThrowEvent boundaryEvent = (IntermediateThrowEvent) flowElement;
-                List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
-                String eventDef = "";
+            if (defs != null && defs.size() > 0) {
+                eventDef = getEventDefinitionAsString(defs.get(0));
+            }
+            nodeProperties.put("node.type", "IntermediateCatchEvent:"+eventDef);
+        } else if (flowElement instanceof IntermediateThrowEvent) {
+            IntermediateThrowEvent boundaryEvent = (IntermediateThrowEvent) flowElement;
+            List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
+            String eventDef = "";
 
-                if (defs != null && defs.size() > 0) {
-                    eventDef = getEventDefinitionAsString(defs.get(0));
-                }
-                nodeProperties.put("node.type", "IntermediateThrowEvent:"+eventDef);
-            } else if (flowElement instanceof StartEvent) {
-                StartEvent boundaryEvent = (StartEvent) flowElement;
-                List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
-                String eventDef = "";
+            if (defs != null && defs.size() > 0) {
+                eventDef = getEventDefinitionAsString(defs.get(0));
+            }
+            nodeProperties.put("node.type", "IntermediateThrowEvent:"+eventDef);
+        } else if (flowElement instanceof StartEvent) {
+            StartEvent boundaryEvent = (StartEvent) flowElement;
+            List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
+            String eventDef = "";
 
-                if (defs != null && defs.size() > 0) {
-                    eventDef = getEventDefinitionAsString(defs.get(0));
-                }
-                nodeProperties.put("node.type", "StartEvent:"+eventDef);
-            } else if (flowElement instanceof EndEvent) {
-                EndEvent boundaryEvent = (EndEvent) flowElement;
-                List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
-                String eventDef = "";
+            if (defs != null && defs.size() > 0) {
+                eventDef = getEventDefinitionAsString(defs.get(0));
+            }
+            nodeProperties.put("node.type", "StartEvent:"+eventDef);
+        } else if (flowElement instanceof EndEvent) {
+            EndEvent boundaryEvent = (EndEvent) flowElement;
+            List<EventDefinition> defs = boundaryEvent.getEventDefinitions();
+            String eventDef = "";
 
-                if (defs != null && defs.size() > 0) {
-                    eventDef = getEventDefinitionAsString(defs.get(0));
-                }
-                nodeProperties.put("node.type", "EndEvent:"+eventDef);
+            if (defs != null && defs.size() > 0) {
+                eventDef = getEventDefinitionAsString(defs.get(0));
             }
-        } else {
-            nodeProperties.put("node.type", "unknown");
+            nodeProperties.put("node.type", "EndEvent:"+eventDef);
         }
         return nodeProperties;
     }
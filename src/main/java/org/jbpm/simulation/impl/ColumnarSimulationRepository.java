@@ -0,0 +1,259 @@
+package org.jbpm.simulation.impl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.SimulationRepository;
+
+/**
+ * Stores raw events of large runs in primitive columns split into fixed size chunks instead of keeping
+ * the event objects, strings are dictionary encoded. Events are materialized only when accessed through
+ * <code>getEvent</code> or the <code>getEvents</code> view, single columns can be read directly by index
+ * without creating any objects. Materialized events are equal in content to the stored ones but get a new
+ * UUID. Custom metrics are kept aside for the few events that have them, events of other types are
+ * kept as they are.
+ * Not thread safe, use <code>AsyncSimulationRepository</code> to feed it from concurrent simulations.
+ */
+public class ColumnarSimulationRepository implements SimulationRepository {
+
+    public static final byte OTHER = EventRecord.OTHER;
+    public static final byte ACTIVITY = EventRecord.ACTIVITY;
+    public static final byte HUMAN_TASK = EventRecord.HUMAN_TASK;
+    public static final byte END = EventRecord.END;
+    public static final byte PROCESS_INSTANCE_END = EventRecord.PROCESS_INSTANCE_END;
+    public static final byte START = EventRecord.START;
+    public static final byte GATEWAY = EventRecord.GATEWAY;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private int size;
+
+    private List<byte[]> kinds = new ArrayList<byte[]>();
+    private List<long[]> processInstanceIds = new ArrayList<long[]>();
+    private List<long[]> startTimes = new ArrayList<long[]>();
+    private List<long[]> endTimes = new ArrayList<long[]>();
+    // activity duration or process duration for end events
+    private List<long[]> durations = new ArrayList<long[]>();
+    private List<long[]> waitTimes = new ArrayList<long[]>();
+    private List<double[]> resourceCosts = new ArrayList<double[]>();
+    private List<double[]> resourceUtilizations = new ArrayList<double[]>();
+
+    private List<int[]> processIds = new ArrayList<int[]>();
+    // activity id or path id for process instance end events
+    private List<int[]> activityIds = new ArrayList<int[]>();
+    private List<int[]> activityNames = new ArrayList<int[]>();
+    private List<int[]> types = new ArrayList<int[]>();
+    private List<int[]> processNames = new ArrayList<int[]>();
+    private List<int[]> processVersions = new ArrayList<int[]>();
+
+    private StringDictionary dictionary = new StringDictionary();
+    private EventRecord record = new EventRecord();
+    private Map<Integer, SimulationEvent> otherEvents = new HashMap<Integer, SimulationEvent>();
+    private Map<Integer, Map<String, Object>> customMetrics = new HashMap<Integer, Map<String, Object>>();
+
+    private SimulationInfo simulationInfo;
+
+    public void storeEvent(SimulationEvent event) {
+        int index = size;
+        if ((index & CHUNK_MASK) == 0) {
+            addChunk();
+        }
+        record.read(event);
+        if (record.kind == OTHER) {
+            otherEvents.put(index, event);
+        } else if (record.customMetrics != null) {
+            customMetrics.put(index, record.customMetrics);
+        }
+        int chunk = index >>> CHUNK_BITS;
+        int offset = index & CHUNK_MASK;
+
+        kinds.get(chunk)[offset] = record.kind;
+        processIds.get(chunk)[offset] = dictionary.encode(record.processId);
+        processInstanceIds.get(chunk)[offset] = record.processInstanceId;
+        startTimes.get(chunk)[offset] = record.startTime;
+        endTimes.get(chunk)[offset] = record.endTime;
+        durations.get(chunk)[offset] = record.duration;
+        waitTimes.get(chunk)[offset] = record.waitTime;
+        resourceCosts.get(chunk)[offset] = record.resourceCost;
+        resourceUtilizations.get(chunk)[offset] = record.resourceUtilization;
+        activityIds.get(chunk)[offset] = dictionary.encode(record.activityId);
+        activityNames.get(chunk)[offset] = dictionary.encode(record.activityName);
+        types.get(chunk)[offset] = dictionary.encode(record.type);
+        processNames.get(chunk)[offset] = dictionary.encode(record.processName);
+        processVersions.get(chunk)[offset] = dictionary.encode(record.processVersion);
+
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Materializes event stored at given index.
+     */
+    public SimulationEvent getEvent(int index) {
+        checkIndex(index);
+        int chunk = index >>> CHUNK_BITS;
+        int offset = index & CHUNK_MASK;
+
+        EventRecord event = new EventRecord();
+        event.kind = kinds.get(chunk)[offset];
+        if (event.kind == OTHER) {
+            return otherEvents.get(index);
+        }
+        event.processId = dictionary.decode(processIds.get(chunk)[offset]);
+        event.processInstanceId = processInstanceIds.get(chunk)[offset];
+        event.startTime = startTimes.get(chunk)[offset];
+        event.endTime = endTimes.get(chunk)[offset];
+        event.duration = durations.get(chunk)[offset];
+        event.waitTime = waitTimes.get(chunk)[offset];
+        event.resourceCost = resourceCosts.get(chunk)[offset];
+        event.resourceUtilization = resourceUtilizations.get(chunk)[offset];
+        event.activityId = dictionary.decode(activityIds.get(chunk)[offset]);
+        event.activityName = dictionary.decode(activityNames.get(chunk)[offset]);
+        event.type = dictionary.decode(types.get(chunk)[offset]);
+        event.processName = dictionary.decode(processNames.get(chunk)[offset]);
+        event.processVersion = dictionary.decode(processVersions.get(chunk)[offset]);
+        event.customMetrics = customMetrics.get(index);
+
+        return event.toEvent();
+    }
+
+    /**
+     * Read only view of all stored events, every access materializes the event again.
+     */
+    public List<SimulationEvent> getEvents() {
+        return new AbstractList<SimulationEvent>() {
+
+            @Override
+            public SimulationEvent get(int index) {
+                return getEvent(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public byte getKind(int index) {
+        checkIndex(index);
+        return kinds.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public String getProcessId(int index) {
+        checkIndex(index);
+        return dictionary.decode(processIds.get(index >>> CHUNK_BITS)[index & CHUNK_MASK]);
+    }
+
+    public long getProcessInstanceId(int index) {
+        checkIndex(index);
+        return processInstanceIds.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public long getStartTime(int index) {
+        checkIndex(index);
+        return startTimes.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public long getEndTime(int index) {
+        checkIndex(index);
+        return endTimes.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public long getDuration(int index) {
+        checkIndex(index);
+        return durations.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public long getWaitTime(int index) {
+        checkIndex(index);
+        return waitTimes.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public double getResourceCost(int index) {
+        checkIndex(index);
+        return resourceCosts.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public double getResourceUtilization(int index) {
+        checkIndex(index);
+        return resourceUtilizations.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    public String getActivityId(int index) {
+        checkIndex(index);
+        return dictionary.decode(activityIds.get(index >>> CHUNK_BITS)[index & CHUNK_MASK]);
+    }
+
+    public String getActivityName(int index) {
+        checkIndex(index);
+        return dictionary.decode(activityNames.get(index >>> CHUNK_BITS)[index & CHUNK_MASK]);
+    }
+
+    public String getType(int index) {
+        checkIndex(index);
+        return dictionary.decode(types.get(index >>> CHUNK_BITS)[index & CHUNK_MASK]);
+    }
+
+    public void close() {
+        size = 0;
+        kinds.clear();
+        processInstanceIds.clear();
+        startTimes.clear();
+        endTimes.clear();
+        durations.clear();
+        waitTimes.clear();
+        resourceCosts.clear();
+        resourceUtilizations.clear();
+        processIds.clear();
+        activityIds.clear();
+        activityNames.clear();
+        types.clear();
+        processNames.clear();
+        processVersions.clear();
+        otherEvents.clear();
+        customMetrics.clear();
+        dictionary = new StringDictionary();
+    }
+
+    public SimulationInfo getSimulationInfo() {
+        return this.simulationInfo;
+    }
+
+    public void setSimulationInfo(SimulationInfo simInfo) {
+        this.simulationInfo = simInfo;
+    }
+
+    private void addChunk() {
+        kinds.add(new byte[CHUNK_SIZE]);
+        processInstanceIds.add(new long[CHUNK_SIZE]);
+        startTimes.add(new long[CHUNK_SIZE]);
+        endTimes.add(new long[CHUNK_SIZE]);
+        durations.add(new long[CHUNK_SIZE]);
+        waitTimes.add(new long[CHUNK_SIZE]);
+        resourceCosts.add(new double[CHUNK_SIZE]);
+        resourceUtilizations.add(new double[CHUNK_SIZE]);
+        processIds.add(new int[CHUNK_SIZE]);
+        activityIds.add(new int[CHUNK_SIZE]);
+        activityNames.add(new int[CHUNK_SIZE]);
+        types.add(new int[CHUNK_SIZE]);
+        processNames.add(new int[CHUNK_SIZE]);
+        processVersions.add(new int[CHUNK_SIZE]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
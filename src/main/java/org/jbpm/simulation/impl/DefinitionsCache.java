@@ -0,0 +1,107 @@
+package org.jbpm.simulation.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.bpmn2.Definitions;
+import org.jbpm.simulation.util.BPMN2Utils;
+import org.jbpm.simulation.util.SimulationUtils;
+
+/**
+ * Bounded LRU cache of parsed BPMN2 definitions keyed by hash of the process xml.
+ */
+public class DefinitionsCache {
+
+    private static final DefinitionsCache INSTANCE = new DefinitionsCache(
+            Integer.parseInt(System.getProperty("org.jbpm.simulation.definitions.cache.size", "20")));
+
+    public static DefinitionsCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxSize;
+    private final Map<String, ParsedProcessModel> models;
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+
+    public DefinitionsCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1 but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.models = new LinkedHashMap<String, ParsedProcessModel>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedProcessModel> eldest) {
+                return size() > DefinitionsCache.this.maxSize;
+            }
+        };
+    }
+
+    public ParsedProcessModel get(String bpmn2xml) {
+        String hash = SimulationUtils.contentHash(bpmn2xml);
+        synchronized (models) {
+            ParsedProcessModel model = models.get(hash);
+            if (model != null) {
+                hits.incrementAndGet();
+                return model;
+            }
+        }
+        misses.incrementAndGet();
+        // parse outside of the lock, in the worst case the same xml is parsed twice by concurrent runs
+        Definitions definitions = null;
+        try {
+            definitions = BPMN2Utils.getDefinitions(new ByteArrayInputStream(bpmn2xml.getBytes("UTF-8")));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        if (definitions == null) {
+            throw new IllegalArgumentException("Unable to parse process definition");
+        }
+        ParsedProcessModel model = new ParsedProcessModel(hash, definitions);
+        synchronized (models) {
+            ParsedProcessModel existing = models.get(hash);
+            if (existing != null) {
+                return existing;
+            }
+            models.put(hash, model);
+        }
+        return model;
+    }
+
+    public void invalidate(String bpmn2xml) {
+        synchronized (models) {
+            models.remove(SimulationUtils.contentHash(bpmn2xml));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (models) {
+            models.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (models) {
+            return models.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
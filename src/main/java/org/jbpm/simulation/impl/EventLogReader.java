@@ -0,0 +1,116 @@
+package org.jbpm.simulation.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationRepository;
+
+/**
+ * Replays event log written by <code>EventLogSimulationRepository</code> into another repository, e.g.
+ * <code>WorkingMemorySimulationRepository</code> with different rules, without running the simulation again.
+ */
+public class EventLogReader {
+
+    private final File directory;
+    private final String name;
+
+    public EventLogReader(File directory, String name) {
+        this.directory = directory;
+        this.name = name;
+    }
+
+    /**
+     * Stores all logged events in given repository in the order they were logged.
+     * @return number of replayed events
+     */
+    public long replay(SimulationRepository repository) {
+        StringDictionary dictionary = readDictionary();
+        EventRecord record = new EventRecord();
+        long replayed = 0;
+
+        for (int index = 0; ; index++) {
+            File file = EventLogSimulationRepository.chunkFile(directory, name, index);
+            if (!file.isFile()) {
+                break;
+            }
+            MappedByteBuffer chunk = map(file);
+            if (chunk.getInt(0) != EventLogSimulationRepository.MAGIC
+                    || chunk.getInt(4) != EventLogSimulationRepository.RECORD_SIZE) {
+                throw new IllegalStateException("File " + file + " is not a valid event log chunk");
+            }
+            long chunkCount = chunk.getLong(EventLogSimulationRepository.COUNT_OFFSET);
+            for (int i = 0; i < chunkCount; i++) {
+                int position = EventLogSimulationRepository.HEADER_SIZE + i * EventLogSimulationRepository.RECORD_SIZE;
+                record.kind = chunk.get(position);
+                record.processInstanceId = chunk.getLong(position + 1);
+                record.startTime = chunk.getLong(position + 9);
+                record.endTime = chunk.getLong(position + 17);
+                record.duration = chunk.getLong(position + 25);
+                record.waitTime = chunk.getLong(position + 33);
+                record.resourceCost = chunk.getDouble(position + 41);
+                record.resourceUtilization = chunk.getDouble(position + 49);
+                record.processId = dictionary.decode(chunk.getInt(position + 57));
+                record.activityId = dictionary.decode(chunk.getInt(position + 61));
+                record.activityName = dictionary.decode(chunk.getInt(position + 65));
+                record.type = dictionary.decode(chunk.getInt(position + 69));
+                record.processName = dictionary.decode(chunk.getInt(position + 73));
+                record.processVersion = dictionary.decode(chunk.getInt(position + 77));
+
+                SimulationEvent event = record.toEvent();
+                repository.storeEvent(event);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    protected StringDictionary readDictionary() {
+        StringDictionary dictionary = new StringDictionary();
+        File file = EventLogSimulationRepository.dictionaryFile(directory, name);
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            while (true) {
+                dictionary.encode(in.readUTF());
+            }
+        } catch (EOFException e) {
+            return dictionary;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read event log dictionary " + file, e);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private MappedByteBuffer map(File file) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read event log chunk " + file, e);
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.jbpm.simulation.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.SimulationRepository;
+
+/**
+ * Appends events to memory mapped log files so raw events of very large runs are kept for audit
+ * without holding them in heap. Every event is written as fixed width record, strings are dictionary
+ * encoded into separate <code>name.dict</code> file. Records go to chunk files <code>name.00000.evl</code>,
+ * <code>name.00001.evl</code>, ... each holding at most configured number of records.
+ * Use <code>EventLogReader</code> to replay the log into another repository. Events of unknown types are
+ * logged with common attributes only, events with custom metrics are rejected as the metrics could not be
+ * replayed.
+ */
+public class EventLogSimulationRepository implements SimulationRepository {
+
+    static final int MAGIC = 0x53494d4c;
+    static final int HEADER_SIZE = 16;
+    static final int COUNT_OFFSET = 8;
+    // kind, 7 longs/doubles and 6 dictionary codes
+    static final int RECORD_SIZE = 1 + 7 * 8 + 6 * 4;
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final File directory;
+    private final String name;
+    private final int chunkSize;
+
+    private StringDictionary dictionary = new StringDictionary();
+    private EventRecord record = new EventRecord();
+    private DataOutputStream dictionaryOut;
+    private boolean dictionaryChanged;
+
+    private MappedByteBuffer chunk;
+    private int chunkIndex = -1;
+    private int chunkCount;
+    private long count;
+    private boolean closed;
+
+    private SimulationInfo simulationInfo;
+
+    public EventLogSimulationRepository(File directory, String name) {
+        this(directory, name, DEFAULT_CHUNK_SIZE);
+    }
+
+    public EventLogSimulationRepository(File directory, String name, int chunkSize) {
+        if (chunkSize < 1 || chunkSize > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " 
+                    + (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE + " but was " + chunkSize);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Unable to create directory " + directory);
+        }
+        this.directory = directory;
+        this.name = name;
+        this.chunkSize = chunkSize;
+        // remove chunks of previous log with the same name so they are not replayed
+        for (int i = 0; chunkFile(directory, name, i).delete(); i++) {
+        }
+        try {
+            this.dictionaryOut = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(dictionaryFile(directory, name))));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create event log " + name + " in " + directory, e);
+        }
+    }
+
+    public synchronized void storeEvent(SimulationEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Event log is already closed");
+        }
+        record.read(event);
+        if (record.customMetrics != null) {
+            throw new IllegalArgumentException("Event log does not support custom metrics of event " + event);
+        }
+        if (chunk == null || chunkCount == chunkSize) {
+            rollover();
+        }
+
+        int position = HEADER_SIZE + chunkCount * RECORD_SIZE;
+        chunk.put(position, record.kind);
+        chunk.putLong(position + 1, record.processInstanceId);
+        chunk.putLong(position + 9, record.startTime);
+        chunk.putLong(position + 17, record.endTime);
+        chunk.putLong(position + 25, record.duration);
+        chunk.putLong(position + 33, record.waitTime);
+        chunk.putDouble(position + 41, record.resourceCost);
+        chunk.putDouble(position + 49, record.resourceUtilization);
+        chunk.putInt(position + 57, encode(record.processId));
+        chunk.putInt(position + 61, encode(record.activityId));
+        chunk.putInt(position + 65, encode(record.activityName));
+        chunk.putInt(position + 69, encode(record.type));
+        chunk.putInt(position + 73, encode(record.processName));
+        chunk.putInt(position + 77, encode(record.processVersion));
+
+        chunkCount++;
+        count++;
+        if (dictionaryChanged) {
+            // strings of the record must be readable before the record is
+            flushDictionary();
+        }
+        // header is updated last so readers never see incomplete record
+        chunk.putLong(COUNT_OFFSET, chunkCount);
+    }
+
+    /**
+     * Forces written records and dictionary to disk.
+     */
+    public synchronized void flush() {
+        flushDictionary();
+        if (chunk != null) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Flushes the log and cuts the last chunk file down to the records actually written.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        if (chunk != null) {
+            chunk = null;
+            truncate(chunkFile(directory, name, chunkIndex), HEADER_SIZE + (long) chunkCount * RECORD_SIZE);
+        }
+        try {
+            dictionaryOut.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SimulationInfo getSimulationInfo() {
+        return this.simulationInfo;
+    }
+
+    public void setSimulationInfo(SimulationInfo simInfo) {
+        this.simulationInfo = simInfo;
+    }
+
+    protected void rollover() {
+        if (chunk != null) {
+            chunk.force();
+        }
+        chunkIndex++;
+        File file = chunkFile(directory, name, chunkIndex);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            // mapping stays valid after the file is closed
+            chunk = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) chunkSize * RECORD_SIZE);
+            chunk.putInt(0, MAGIC);
+            chunk.putInt(4, RECORD_SIZE);
+            chunk.putLong(COUNT_OFFSET, 0);
+            chunkCount = 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create event log chunk " + file, e);
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void flushDictionary() {
+        try {
+            dictionaryOut.flush();
+            dictionaryChanged = false;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write event log dictionary", e);
+        }
+    }
+
+    private void truncate(File file, long length) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(length);
+        } catch (IOException e) {
+            // some platforms do not allow to truncate mapped file, readers rely on the header count anyway
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private int encode(String value) {
+        int size = dictionary.size();
+        int code = dictionary.encode(value);
+        if (dictionary.size() > size) {
+            try {
+                dictionaryOut.writeUTF(value);
+                dictionaryChanged = true;
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to write event log dictionary", e);
+            }
+        }
+        return code;
+    }
+
+    static File dictionaryFile(File directory, String name) {
+        return new File(directory, name + ".dict");
+    }
+
+    static File chunkFile(File directory, String name, int index) {
+        String number = String.valueOf(index);
+        while (number.length() < 5) {
+            number = "0" + number;
+        }
+        return new File(directory, name + "." + number + ".evl");
+    }
+}
@@ -0,0 +1,171 @@
+package org.jbpm.simulation.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.EndSimulationEvent;
+import org.jbpm.simulation.impl.events.GatewaySimulationEvent;
+import org.jbpm.simulation.impl.events.GenericSimulationEvent;
+import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+import org.jbpm.simulation.impl.events.StartSimulationEvent;
+
+/**
+ * Flat, reusable representation of a simulation event used by repositories that store events
+ * as primitive values instead of objects.
+ */
+class EventRecord {
+
+    static final byte OTHER = 0;
+    static final byte ACTIVITY = 1;
+    static final byte HUMAN_TASK = 2;
+    static final byte END = 3;
+    static final byte PROCESS_INSTANCE_END = 4;
+    static final byte START = 5;
+    static final byte GATEWAY = 6;
+
+    byte kind;
+    String processId;
+    long processInstanceId;
+    long startTime;
+    long endTime;
+    // activity duration or process duration for end events
+    long duration;
+    long waitTime;
+    double resourceCost;
+    double resourceUtilization;
+    // activity id or path id for process instance end events
+    String activityId;
+    String activityName;
+    String type;
+    String processName;
+    String processVersion;
+    // custom metrics of the event, null when there are none as that is the common case
+    Map<String, Object> customMetrics;
+
+    static byte kindOf(SimulationEvent event) {
+        // only exact types are flattened, subclasses may carry more data
+        Class<?> type = event.getClass();
+        if (type == ActivitySimulationEvent.class) {
+            return ACTIVITY;
+        } else if (type == HumanTaskActivitySimulationEvent.class) {
+            return HUMAN_TASK;
+        } else if (type == EndSimulationEvent.class) {
+            return END;
+        } else if (type == ProcessInstanceEndSimulationEvent.class) {
+            return PROCESS_INSTANCE_END;
+        } else if (type == StartSimulationEvent.class) {
+            return START;
+        } else if (type == GatewaySimulationEvent.class) {
+            return GATEWAY;
+        }
+        return OTHER;
+    }
+
+    void read(SimulationEvent event) {
+        kind = kindOf(event);
+        processId = event.getProcessId();
+        processInstanceId = event.getProcessInstanceId();
+        startTime = event.getStartTime();
+        endTime = event.getEndTime();
+        type = event.getType();
+
+        activityId = null;
+        activityName = null;
+        processName = null;
+        processVersion = null;
+        duration = 0;
+        waitTime = 0;
+        resourceCost = 0;
+        resourceUtilization = 0;
+        customMetrics = null;
+        if (event instanceof GenericSimulationEvent && ((GenericSimulationEvent) event).hasCustomMetrics()) {
+            customMetrics = new HashMap<String, Object>(((GenericSimulationEvent) event).getCustomMetrics());
+        }
+
+        switch (kind) {
+        case ACTIVITY:
+            ActivitySimulationEvent activityEvent = (ActivitySimulationEvent) event;
+            activityId = activityEvent.getActivityId();
+            activityName = activityEvent.getActivityName();
+            duration = activityEvent.getDuration();
+            break;
+        case HUMAN_TASK:
+            HumanTaskActivitySimulationEvent htEvent = (HumanTaskActivitySimulationEvent) event;
+            activityId = htEvent.getActivityId();
+            activityName = htEvent.getActivityName();
+            duration = htEvent.getDuration();
+            waitTime = htEvent.getWaitTime();
+            resourceCost = htEvent.getResourceCost();
+            resourceUtilization = htEvent.getResourceUtilization();
+            break;
+        case END:
+            EndSimulationEvent endEvent = (EndSimulationEvent) event;
+            activityId = endEvent.getActivityId();
+            activityName = endEvent.getActivityName();
+            processName = endEvent.getProcessName();
+            processVersion = endEvent.getProcessVersion();
+            duration = endEvent.getProcessDuration();
+            break;
+        case PROCESS_INSTANCE_END:
+            ProcessInstanceEndSimulationEvent processEvent = (ProcessInstanceEndSimulationEvent) event;
+            activityId = processEvent.getPathId();
+            processName = processEvent.getProcessName();
+            processVersion = processEvent.getProcessVersion();
+            duration = processEvent.getProcessDuration();
+            break;
+        case START:
+            StartSimulationEvent startEvent = (StartSimulationEvent) event;
+            activityId = startEvent.getActivityId();
+            activityName = startEvent.getActivityName();
+            break;
+        case GATEWAY:
+            GatewaySimulationEvent gatewayEvent = (GatewaySimulationEvent) event;
+            activityId = gatewayEvent.getActivityId();
+            activityName = gatewayEvent.getActivityName();
+            break;
+        default:
+            // only common attributes are known
+        }
+    }
+
+    /**
+     * Creates new event from the record, it is equal in content to the original event but has new UUID.
+     * Events of other types are restored as <code>GenericSimulationEvent</code> with common attributes only.
+     * Custom metrics are restored for all types.
+     */
+    SimulationEvent toEvent() {
+        GenericSimulationEvent event = newEvent();
+        if (customMetrics != null) {
+            for (Map.Entry<String, Object> metric : customMetrics.entrySet()) {
+                event.addCustomMetric(metric.getKey(), metric.getValue());
+            }
+        }
+        return event;
+    }
+
+    private GenericSimulationEvent newEvent() {
+        switch (kind) {
+        case ACTIVITY:
+            return new ActivitySimulationEvent(processId, processInstanceId, activityName, activityId, duration,
+                    startTime, endTime, type);
+        case HUMAN_TASK:
+            return new HumanTaskActivitySimulationEvent(processId, processInstanceId, activityName, activityId, duration,
+                    waitTime, resourceCost, startTime, endTime, resourceUtilization);
+        case END:
+            return new EndSimulationEvent(processId, processInstanceId, startTime, endTime, endTime - duration, activityId,
+                    activityName, processName, processVersion);
+        case PROCESS_INSTANCE_END:
+            return new ProcessInstanceEndSimulationEvent(processId, processInstanceId, startTime, endTime, activityId,
+                    processName, processVersion);
+        case START:
+            return new StartSimulationEvent(processId, processInstanceId, startTime, endTime, activityId, activityName);
+        case GATEWAY:
+            return new GatewaySimulationEvent(processId, processInstanceId, startTime, endTime, activityId, activityName, type);
+        default:
+            return new GenericSimulationEvent(processId, processInstanceId, startTime, endTime, type);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jbpm.simulation.util.SimulationUtils;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.model.KieBaseModel;
+import org.kie.api.builder.model.KieModuleModel;
+import org.kie.api.builder.model.KieSessionModel;
+import org.kie.api.conf.EqualityBehaviorOption;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.conf.ClockTypeOption;
+
+/**
+ * LRU cache of compiled simulation kjars keyed by hash of their content so repeated simulations
+ * of unchanged process definition skip <code>KieBuilder.buildAll()</code>. Every distinct content
+ * gets its own <code>ReleaseId</code> as the default one would be overridden in the <code>KieRepository</code>
+ * by the next build, so evicted and invalidated modules are removed from the <code>KieRepository</code>
+ * and their containers disposed to keep memory bounded by the cache size.
+ */
+public class KieModuleCache {
+
+    public static final String GROUP_ID = "org.jbpm.simulation";
+    public static final String VERSION = "1.0.0";
+
+    private static final KieModuleCache INSTANCE = new KieModuleCache(
+            Integer.parseInt(System.getProperty("org.jbpm.simulation.kiemodule.cache.size", "20")));
+
+    public static KieModuleCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxSize;
+    private final Map<String, CachedKieModule> modules;
+    // evicted while holding the cache lock, disposed once it is released
+    private final List<CachedKieModule> evicted = new ArrayList<CachedKieModule>();
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+    private AtomicLong evictions = new AtomicLong();
+
+    public KieModuleCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1 but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.modules = new LinkedHashMap<String, CachedKieModule>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedKieModule> eldest) {
+                if (size() > KieModuleCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    evicted.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public CachedKieModule get(String id, String[] resources, ResourceType[] types) {
+        String hash = hash(id, resources, types);
+
+        CachedKieModule module = null;
+        List<CachedKieModule> toDispose = null;
+        synchronized (modules) {
+            module = modules.get(hash);
+            if (module == null) {
+                module = new CachedKieModule(hash, id);
+                modules.put(hash, module);
+                toDispose = new ArrayList<CachedKieModule>(evicted);
+                evicted.clear();
+            }
+        }
+        if (toDispose != null) {
+            dispose(toDispose);
+        }
+        // build outside of the cache lock so different definitions can be compiled concurrently
+        if (module.build(resources, types)) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return module;
+    }
+
+    public void invalidate(String id, String[] resources, ResourceType[] types) {
+        invalidate(hash(id, resources, types));
+    }
+
+    public void invalidate(String hash) {
+        CachedKieModule module = null;
+        synchronized (modules) {
+            module = modules.remove(hash);
+        }
+        if (module != null) {
+            module.dispose();
+        }
+    }
+
+    public void invalidateAll() {
+        List<CachedKieModule> toDispose = null;
+        synchronized (modules) {
+            toDispose = new ArrayList<CachedKieModule>(modules.values());
+            modules.clear();
+        }
+        dispose(toDispose);
+    }
+
+    private void dispose(List<CachedKieModule> toDispose) {
+        for (CachedKieModule module : toDispose) {
+            module.dispose();
+        }
+    }
+
+    public int size() {
+        synchronized (modules) {
+            return modules.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    protected static String hash(String id, String[] resources, ResourceType[] types) {
+        String[] content = new String[resources.length * 2 + 1];
+        content[0] = id;
+        for (int i = 0; i < resources.length; i++) {
+            content[i * 2 + 1] = types[i].getDefaultExtension();
+            content[i * 2 + 2] = resources[i];
+        }
+        return SimulationUtils.contentHash(content);
+    }
+
+    public static class CachedKieModule {
+
+        private final String hash;
+        private final String id;
+        private ReleaseId releaseId;
+        private KieContainer kieContainer;
+
+        CachedKieModule(String hash, String id) {
+            this.hash = hash;
+            this.id = id;
+        }
+
+        synchronized boolean build(String[] resources, ResourceType[] types) {
+            if (releaseId != null) {
+                return false;
+            }
+            KieServices ks = KieServices.Factory.get();
+            ReleaseId newReleaseId = ks.newReleaseId(GROUP_ID, "simulation-" + hash, VERSION);
+            KieModuleModel kproj = ks.newKieModuleModel();
+            KieFileSystem kfs = ks.newKieFileSystem();
+            kfs.generateAndWritePomXML(newReleaseId);
+
+            for (int i = 0; i < resources.length; i++) {
+                String res = resources[i];
+                String type = types[i].getDefaultExtension();
+
+                kfs.write("src/main/resources/" + id.replaceAll("\\.", "/")
+                        + "/org/test/res" + i + "." + type, res);
+            }
+
+            KieBaseModel kBase1 = kproj.newKieBaseModel(id)
+                    .setEqualsBehavior(EqualityBehaviorOption.EQUALITY)
+                    .setEventProcessingMode(EventProcessingOption.STREAM);
+
+            kBase1.newKieSessionModel(id + ".KSession1")
+                    .setType(KieSessionModel.KieSessionType.STATEFUL)
+                    .setClockType(ClockTypeOption.get("pseudo"));
+
+            kfs.writeKModuleXML(kproj.toXML());
+
+            KieBuilder kieBuilder = ks.newKieBuilder(kfs).buildAll();
+            if(!kieBuilder.getResults().getMessages().isEmpty()) {
+                for (Message msg : kieBuilder.getResults().getMessages()) {
+                    System.out.println("[ERROR]" + msg.getText());
+                }
+                throw new RuntimeException("Error building knowledge base, see previous errors");
+            }
+            this.releaseId = kieBuilder.getKieModule().getReleaseId();
+
+            return true;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public synchronized ReleaseId getReleaseId() {
+            return releaseId;
+        }
+
+        public synchronized KieContainer getKieContainer() {
+            if (releaseId == null) {
+                throw new IllegalStateException("Module " + hash + " is not built or was already disposed");
+            }
+            if (kieContainer == null) {
+                kieContainer = KieServices.Factory.get().newKieContainer(releaseId);
+            }
+            return kieContainer;
+        }
+
+        // kie base is immutable once built so it can be shared by concurrent simulations
+        public synchronized KieBase getKieBase() {
+            return getKieContainer().getKieBase(id);
+        }
+
+        // module is no longer in the cache, new requests build it again under the same release id
+        synchronized void dispose() {
+            if (kieContainer != null) {
+                kieContainer.dispose();
+                kieContainer = null;
+            }
+            if (releaseId != null) {
+                KieServices.Factory.get().getRepository().removeKieModule(releaseId);
+                releaseId = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.bpmn2.Activity;
+import org.eclipse.bpmn2.Definitions;
+import org.eclipse.bpmn2.FlowElement;
+import org.eclipse.bpmn2.FlowElementsContainer;
+import org.eclipse.bpmn2.IntermediateCatchEvent;
+import org.eclipse.bpmn2.StartEvent;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.jbpm.simulation.PathContext;
+import org.jbpm.simulation.PathContextManager;
+import org.jbpm.simulation.PathElementIndex;
+import org.jbpm.simulation.PathFormatConverter;
+import org.jbpm.simulation.PathVisitor;
+import org.jbpm.simulation.StreamingPathFinder;
+import org.jbpm.simulation.handler.HandlerRegistry;
+import org.jbpm.simulation.util.BPMN2Utils;
+
+/**
+ * Path finder that explores paths as tasks on a thread pool, one task for every trigger element (start events,
+ * catching events and ad hoc activities without incoming flows) and one for every branch of an exclusive gateway
+ * that no element handled before the gateway still works on. Branches of inclusive and parallel gateways,
+ * boundary events and sub processes rely on the shared context stack and are explored by the task that
+ * reached them, so are all branches when paths are pruned as the pruner keeps state of the whole search.
+ * EMF models are not safe for concurrent reads, so the model is read through on the calling thread first,
+ * while holding the monitor of the model (the <code>ParsedProcessModel</code> when given), and the monitor
+ * is held until the search completes so that tasks only read the model.
+ * Paths are reported on the calling thread in order of the branches that found them, as soon as the branches
+ * before them complete, and are not kept once reported.
+ */
+public class ParallelPathFinder implements StreamingPathFinder {
+
+    // pool threads do not keep the JVM running when the finder is not shut down
+    private static final ThreadFactory DAEMON_THREADS = new ThreadFactory() {
+
+        private ThreadFactory threadFactory = Executors.defaultThreadFactory();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private EObject model;
+    private Object lock;
+    private ExecutorService executor;
+    private boolean ownExecutor;
+
+    /**
+     * Path finder with its own pool of daemon threads, {@link #shutdown()} releases them.
+     */
+    public ParallelPathFinder(Definitions definitions) {
+        this(definitions, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), DAEMON_THREADS));
+        this.ownExecutor = true;
+    }
+
+    public ParallelPathFinder(Definitions definitions, ExecutorService executor) {
+        this(definitions, definitions, executor);
+    }
+
+    public ParallelPathFinder(FlowElementsContainer container, ExecutorService executor) {
+        this(container, container, executor);
+    }
+
+    public ParallelPathFinder(ParsedProcessModel model, ExecutorService executor) {
+        this(model.getDefinitions(), model, executor);
+    }
+
+    private ParallelPathFinder(EObject model, Object lock, ExecutorService executor) {
+        this.model = model;
+        this.lock = lock;
+        this.executor = executor;
+    }
+
+    public List<PathContext> findPaths() {
+        final List<PathContext> paths = new ArrayList<PathContext>();
+        findPaths(new PathVisitor() {
+
+            public void visit(PathContext path) {
+                paths.add(path);
+            }
+        });
+        return paths;
+    }
+
+    public <E> E findPaths(PathFormatConverter<E> converter) {
+        return converter.convert(findPaths());
+    }
+
+    public void findPaths(PathVisitor visitor) {
+        synchronized (lock) {
+            BPMN2PathFinderImpl finder = newFinder(model);
+            Map<String, FlowElement> catchingEvents = finder.getCatchingEvents();
+            PathElementIndex elementIndex = readModel();
+
+            Search search = new Search();
+            try {
+                List<Object> results = new ArrayList<Object>();
+                for (FlowElement trigger : getTriggers(finder)) {
+                    PathContextManager manager = new PathContextManager(elementIndex);
+                    manager.setCatchingEvents(catchingEvents);
+                    results.add(search.submit(manager, trigger));
+                }
+                visit(results, visitor);
+            } catch (InterruptedException e) {
+                search.cancelled = true;
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for path finding", e);
+            } catch (ExecutionException e) {
+                search.cancelled = true;
+                throw new RuntimeException("Path finding failed", e.getCause());
+            } catch (RuntimeException e) {
+                search.cancelled = true;
+                throw e;
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    protected BPMN2PathFinderImpl newFinder(EObject model) {
+        if (model instanceof Definitions) {
+            return new BPMN2PathFinderImpl((Definitions) model);
+        }
+        return new BPMN2PathFinderImpl((FlowElementsContainer) model);
+    }
+
+    // reads the whole model once, resolving its references and creating its lazily created lists,
+    // and indexes all its elements so that tasks only read the model and the index
+    private PathElementIndex readModel() {
+        EcoreUtil.resolveAll(model);
+        PathElementIndex elementIndex = new PathElementIndex();
+        if (model instanceof FlowElement) {
+            elementIndex.getId((FlowElement) model);
+        }
+        TreeIterator<EObject> contents = model.eAllContents();
+        while (contents.hasNext()) {
+            EObject content = contents.next();
+            if (content instanceof FlowElement) {
+                elementIndex.getId((FlowElement) content);
+                // reads attributes of the process
+                BPMN2Utils.isAdHoc((FlowElement) content);
+            }
+        }
+        elementIndex.setReadOnly(true);
+        return elementIndex;
+    }
+
+    // reports paths and waits for forked branches in order they were found, releasing them once reported
+    @SuppressWarnings("unchecked")
+    private void visit(List<Object> results, PathVisitor visitor) throws InterruptedException, ExecutionException {
+        for (int i = 0; i < results.size(); i++) {
+            Object result = results.set(i, null);
+            if (result instanceof Future) {
+                visit(((Future<List<Object>>) result).get(), visitor);
+            } else {
+                visitor.visit((PathContext) result);
+            }
+        }
+    }
+
+    private static List<FlowElement> getTriggers(BPMN2PathFinderImpl finder) {
+        List<FlowElement> triggers = new ArrayList<FlowElement>();
+        for (FlowElement fe : finder.getTriggerElements()) {
+            if (fe instanceof StartEvent || fe instanceof Activity || fe instanceof IntermediateCatchEvent) {
+                triggers.add(fe);
+            }
+        }
+        return triggers;
+    }
+
+    private class Search {
+
+        // tasks that did not start yet do nothing once the search failed
+        private volatile boolean cancelled;
+
+        Future<List<Object>> submit(PathContextManager manager, FlowElement start) {
+            return executor.submit(new BranchTask(this, manager, start));
+        }
+    }
+
+    /**
+     * Explores paths from given element with given manager, paths of the branches it forks are found
+     * by other tasks.
+     */
+    private static class BranchTask implements Callable<List<Object>>, PathVisitor, PathContextManager.BranchForker {
+
+        private Search search;
+        private PathContextManager manager;
+        private FlowElement start;
+        // paths found and futures of the branches forked, in order they were found
+        private List<Object> results = new ArrayList<Object>();
+
+        BranchTask(Search search, PathContextManager manager, FlowElement start) {
+            this.search = search;
+            this.manager = manager;
+            this.start = start;
+            manager.setPathVisitor(this);
+            manager.setBranchForker(this);
+        }
+
+        public List<Object> call() throws Exception {
+            if (!search.cancelled) {
+                HandlerRegistry.getMainHandler().handle(start, manager);
+                manager.complete();
+            }
+            return results;
+        }
+
+        public void visit(PathContext path) {
+            results.add(path);
+        }
+
+        public void fork(PathContextManager branch, FlowElement target) {
+            if (!search.cancelled) {
+                results.add(search.submit(branch, target));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.jbpm.simulation.impl;
+
+import org.eclipse.bpmn2.Definitions;
+
+/**
+ * Handle to BPMN2 definitions parsed once and shared by path finder and simulation data provider.
+ * The wrapped model is shared between simulation runs (and threads). EMF resolves proxies and creates
+ * lists lazily even when the model is only read, so the definitions must be walked while holding the
+ * monitor of this model.
+ */
+public final class ParsedProcessModel {
+
+    private final String hash;
+    private final Definitions definitions;
+
+    public ParsedProcessModel(String hash, Definitions definitions) {
+        this.hash = hash;
+        this.definitions = definitions;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public Definitions getDefinitions() {
+        return definitions;
+    }
+}
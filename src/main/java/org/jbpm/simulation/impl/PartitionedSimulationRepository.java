@@ -0,0 +1,61 @@
+package org.jbpm.simulation.impl;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.SimulationRepository;
+import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
+
+/**
+ * Dispatches events to one of the partition repositories by activity so that all events of the same
+ * activity end up in the same partition. Events without activity (process instance end, end events)
+ * are partitioned by their type as the rules aggregate them together.
+ */
+public class PartitionedSimulationRepository implements SimulationRepository {
+
+    private final SimulationRepository[] partitions;
+    private SimulationInfo simulationInfo;
+
+    public PartitionedSimulationRepository(SimulationRepository... partitions) {
+        if (partitions.length == 0) {
+            throw new IllegalArgumentException("At least one partition is required");
+        }
+        this.partitions = partitions;
+    }
+
+    public void storeEvent(SimulationEvent event) {
+        partitions[partitionOf(event)].storeEvent(event);
+    }
+
+    public int partitionOf(SimulationEvent event) {
+        String key = partitionKey(event);
+        if (key == null) {
+            return 0;
+        }
+        return (key.hashCode() & Integer.MAX_VALUE) % partitions.length;
+    }
+
+    protected String partitionKey(SimulationEvent event) {
+        if (event instanceof ActivitySimulationEvent) {
+            return ((ActivitySimulationEvent) event).getActivityName();
+        } else if (event instanceof HumanTaskActivitySimulationEvent) {
+            return ((HumanTaskActivitySimulationEvent) event).getActivityName();
+        }
+        return event.getType();
+    }
+
+    public SimulationRepository[] getPartitions() {
+        return partitions;
+    }
+
+    public SimulationInfo getSimulationInfo() {
+        return this.simulationInfo;
+    }
+
+    public void setSimulationInfo(SimulationInfo simInfo) {
+        this.simulationInfo = simInfo;
+        for (SimulationRepository partition : partitions) {
+            partition.setSimulationInfo(simInfo);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.eclipse.bpmn2.BoundaryEvent;
+import org.eclipse.bpmn2.FlowElement;
+import org.eclipse.bpmn2.SequenceFlow;
+import org.jbpm.simulation.PathContext;
+import org.jbpm.simulation.PathElementIndex;
+import org.jbpm.simulation.SimulationDataProvider;
+
+/**
+ * Limits path finding to the most probable paths. Probability of a path is the product of probabilities
+ * of its sequence flows and boundary events as calculated by <code>SimulationDataProvider</code>, it can only
+ * decrease as a path grows so partial path that is already below minimum probability or below the least 
+ * probable of the best <code>maxPaths</code> complete paths is not explored any further.
+ * Paths keep their probability up to date as elements are added, through element probabilities this pruner
+ * provides to their <code>PathElementIndex</code>.
+ */
+public class PathProbabilityPruner implements PathElementIndex.ElementProbability {
+
+    // least probable path first
+    private static final Comparator<ScoredPath> BY_PROBABILITY = new Comparator<ScoredPath>() {
+
+        public int compare(ScoredPath o1, ScoredPath o2) {
+            return Double.compare(o1.probability, o2.probability);
+        }
+    };
+
+    private final SimulationDataProvider provider;
+    private final int maxPaths;
+    private final double minProbability;
+
+    // probability of single element, computed once per element
+    private Map<FlowElement, Double> factors = new IdentityHashMap<FlowElement, Double>();
+    private PriorityQueue<ScoredPath> best;
+    // ids of the paths in the queue, traversals that found the same path take single place only
+    private Set<String> bestIds;
+    private long pruned;
+
+    /**
+     * @param maxPaths number of most probable paths to keep, 0 for no limit
+     * @param minProbability paths less probable than this are dropped (0 - 1)
+     */
+    public PathProbabilityPruner(SimulationDataProvider provider, int maxPaths, double minProbability) {
+        if (maxPaths < 0) {
+            throw new IllegalArgumentException("Maximum number of paths cannot be negative but was " + maxPaths);
+        }
+        this.provider = provider;
+        this.maxPaths = maxPaths;
+        this.minProbability = minProbability;
+        if (maxPaths > 0) {
+            this.best = new PriorityQueue<ScoredPath>(maxPaths, BY_PROBABILITY);
+            this.bestIds = new HashSet<String>();
+        }
+    }
+
+    /**
+     * @return true if path extended with given element can still be accepted
+     */
+    public boolean isPromising(PathContext context, FlowElement next) {
+        double bound = getProbability(context);
+        if (next != null && !context.containsPathElement(next)) {
+            bound *= getFactor(next);
+        }
+        return isPromising(bound);
+    }
+    
+    /**
+     * @return true if path extended with all given elements can still be accepted
+     */
+    public boolean isPromising(PathContext context, List<? extends FlowElement> next) {
+        double bound = getProbability(context);
+        for (FlowElement element : next) {
+            if (!context.containsPathElement(element)) {
+                bound *= getFactor(element);
+            }
+        }
+        return isPromising(bound);
+    }
+    
+    private boolean isPromising(double bound) {
+        if (bound < minProbability || (isBounded() && best.size() == maxPaths && bound <= best.peek().probability)) {
+            pruned++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Offers complete path, when the number of paths is limited paths with the same id are kept only once.
+     * @return true if the path is accepted, it can still be replaced by more probable one when the number of paths is limited
+     */
+    public boolean accept(PathContext context) {
+        double probability = getProbability(context);
+        if (probability < minProbability) {
+            return false;
+        }
+        if (!isBounded()) {
+            return true;
+        }
+        if (bestIds.contains(context.getPathId())) {
+            return false;
+        }
+        if (best.size() == maxPaths) {
+            if (probability <= best.peek().probability) {
+                return false;
+            }
+            bestIds.remove(best.poll().path.getPathId());
+        }
+        best.add(new ScoredPath(context, probability));
+        bestIds.add(context.getPathId());
+        return true;
+    }
+
+    /**
+     * @return accepted paths ordered from the most probable one, empty when number of paths is not limited
+     * as those are not kept by the pruner
+     */
+    public List<PathContext> getPaths() {
+        List<PathContext> paths = new ArrayList<PathContext>();
+        if (!isBounded()) {
+            return paths;
+        }
+        List<ScoredPath> scored = new ArrayList<ScoredPath>(best);
+        Collections.sort(scored, Collections.reverseOrder(BY_PROBABILITY));
+        for (ScoredPath path : scored) {
+            paths.add(path.path);
+        }
+        return paths;
+    }
+
+    public double getProbability(PathContext context) {
+        if (context.getElementIndex().getElementProbability() == this) {
+            return Math.exp(context.getPathLogProbability());
+        }
+        // path was not built with probabilities of this pruner
+        double probability = 1;
+        for (FlowElement element : context.getPathElements()) {
+            probability *= getFactor(element);
+        }
+        return probability;
+    }
+
+    public boolean isBounded() {
+        return maxPaths > 0;
+    }
+
+    public int getMaxPaths() {
+        return maxPaths;
+    }
+
+    public double getMinProbability() {
+        return minProbability;
+    }
+
+    // number of partial paths that were not explored
+    public long getPruned() {
+        return pruned;
+    }
+
+    public double getProbability(FlowElement element) {
+        return getFactor(element);
+    }
+
+    protected double getFactor(FlowElement element) {
+        Double factor = factors.get(element);
+        if (factor == null) {
+            SimulationPath single = new SimulationPath();
+            if (element instanceof SequenceFlow) {
+                single.addSequenceFlow(element.getId());
+                factor = provider.calculatePathProbability(single);
+            } else if (element instanceof BoundaryEvent) {
+                single.addBoundaryEventId(element.getId());
+                factor = provider.calculatePathProbability(single);
+            } else {
+                factor = 1.0;
+            }
+            factors.put(element, factor);
+        }
+        return factor;
+    }
+
+    private static class ScoredPath {
+        PathContext path;
+        double probability;
+
+        ScoredPath(PathContext path, double probability) {
+            this.path = path;
+            this.probability = probability;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.jbpm.simulation.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+
+/**
+ * Statistics collected by single replication of the simulation, keyed by activity id.
+ */
+public class ReplicationResult {
+
+    private String processId;
+    private Map<String, SummaryStatistics> activityDurations = new LinkedHashMap<String, SummaryStatistics>();
+    private Map<String, String> activityNames = new HashMap<String, String>();
+    private SummaryStatistics processDurations = new SummaryStatistics();
+    
+    public void addEvent(SimulationEvent event) {
+        if (event instanceof ActivitySimulationEvent) {
+            ActivitySimulationEvent activityEvent = (ActivitySimulationEvent) event;
+            addActivityDuration(activityEvent.getActivityId(), activityEvent.getActivityName(), activityEvent.getDuration());
+        } else if (event instanceof HumanTaskActivitySimulationEvent) {
+            HumanTaskActivitySimulationEvent htEvent = (HumanTaskActivitySimulationEvent) event;
+            addActivityDuration(htEvent.getActivityId(), htEvent.getActivityName(), htEvent.getDuration());
+        } else if (event instanceof ProcessInstanceEndSimulationEvent) {
+            this.processId = event.getProcessId();
+            this.processDurations.addValue(((ProcessInstanceEndSimulationEvent) event).getProcessDuration());
+        }
+    }
+    
+    protected void addActivityDuration(String activityId, String activityName, long duration) {
+        SummaryStatistics stats = activityDurations.get(activityId);
+        if (stats == null) {
+            stats = new SummaryStatistics();
+            activityDurations.put(activityId, stats);
+            activityNames.put(activityId, activityName);
+        }
+        stats.addValue(duration);
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public Map<String, SummaryStatistics> getActivityDurations() {
+        return activityDurations;
+    }
+    
+    public String getActivityName(String activityId) {
+        return activityNames.get(activityId);
+    }
+
+    public SummaryStatistics getProcessDurations() {
+        return processDurations;
+    }
+}
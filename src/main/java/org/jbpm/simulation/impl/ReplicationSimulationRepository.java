@@ -0,0 +1,27 @@
+package org.jbpm.simulation.impl;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.SimulationRepository;
+
+public class ReplicationSimulationRepository implements SimulationRepository {
+
+    private ReplicationResult result = new ReplicationResult();
+    private SimulationInfo simulationInfo;
+    
+    public void storeEvent(SimulationEvent event) {
+        result.addEvent(event);
+    }
+
+    public SimulationInfo getSimulationInfo() {
+        return this.simulationInfo;
+    }
+
+    public void setSimulationInfo(SimulationInfo simInfo) {
+        this.simulationInfo = simInfo;
+    }
+
+    public ReplicationResult getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math.MathException;
+import org.apache.commons.math.distribution.TDistributionImpl;
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+import org.jbpm.simulation.AggregatedSimulationEvent;
+import org.jbpm.simulation.impl.events.AggregatedReplicationSimulationEvent;
+
+/**
+ * Merges results of independent replications - every replication contributes its mean as single
+ * observation so standard deviation and confidence interval describe variance across replications.
+ */
+public class ReplicationSummary {
+
+    private int numberOfReplications;
+    private double confidenceLevel;
+    private List<AggregatedSimulationEvent> activities = new ArrayList<AggregatedSimulationEvent>();
+    private AggregatedSimulationEvent process;
+    private long masterSeed;
+    
+    public ReplicationSummary(List<ReplicationResult> results, double confidenceLevel) {
+        if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+            throw new IllegalArgumentException("Confidence level must be between 0 and 1 but was " + confidenceLevel);
+        }
+        this.numberOfReplications = results.size();
+        this.confidenceLevel = confidenceLevel;
+        
+        Map<String, SummaryStatistics> activityMeans = new LinkedHashMap<String, SummaryStatistics>();
+        Map<String, Long> activityInstances = new LinkedHashMap<String, Long>();
+        Map<String, String> activityNames = new LinkedHashMap<String, String>();
+        SummaryStatistics processMeans = new SummaryStatistics();
+        long processInstances = 0;
+        String processId = null;
+        
+        for (ReplicationResult result : results) {
+            for (Map.Entry<String, SummaryStatistics> entry : result.getActivityDurations().entrySet()) {
+                String activityId = entry.getKey();
+                SummaryStatistics means = activityMeans.get(activityId);
+                if (means == null) {
+                    means = new SummaryStatistics();
+                    activityMeans.put(activityId, means);
+                    activityInstances.put(activityId, 0L);
+                    activityNames.put(activityId, result.getActivityName(activityId));
+                }
+                means.addValue(entry.getValue().getMean());
+                activityInstances.put(activityId, activityInstances.get(activityId) + entry.getValue().getN());
+            }
+            if (result.getProcessDurations().getN() > 0) {
+                processId = result.getProcessId();
+                processMeans.addValue(result.getProcessDurations().getMean());
+                processInstances += result.getProcessDurations().getN();
+            }
+        }
+        
+        for (Map.Entry<String, SummaryStatistics> entry : activityMeans.entrySet()) {
+            activities.add(buildEvent(entry.getKey(), activityNames.get(entry.getKey()), entry.getValue(), 
+                    activityInstances.get(entry.getKey()), "activity"));
+        }
+        process = buildEvent(processId, processId, processMeans, processInstances, "process");
+    }
+    
+    protected AggregatedSimulationEvent buildEvent(String id, String name, SummaryStatistics means, long instances, String type) {
+        double mean = means.getN() > 0 ? means.getMean() : 0;
+        double stdDev = means.getN() > 1 ? means.getStandardDeviation() : 0;
+        double halfWidth = 0;
+        if (means.getN() > 1) {
+            try {
+                double t = new TDistributionImpl(means.getN() - 1).inverseCumulativeProbability(1 - (1 - confidenceLevel) / 2);
+                halfWidth = t * stdDev / Math.sqrt(means.getN());
+            } catch (MathException e) {
+                throw new RuntimeException("Unable to calculate confidence interval for " + id, e);
+            }
+        }
+        return new AggregatedReplicationSimulationEvent(id, name, means.getN(), instances, mean, stdDev, 
+                confidenceLevel, mean - halfWidth, mean + halfWidth, type);
+    }
+
+    public int getNumberOfReplications() {
+        return numberOfReplications;
+    }
+
+    public double getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    public void setMasterSeed(long masterSeed) {
+        this.masterSeed = masterSeed;
+    }
+
+    public List<AggregatedSimulationEvent> getActivities() {
+        return activities;
+    }
+
+    public AggregatedSimulationEvent getProcess() {
+        return process;
+    }
+}
@@ -0,0 +1,244 @@
+package org.jbpm.simulation.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.util.DroolsStreamUtils;
+import org.jbpm.simulation.impl.rules.CountByAccumulateFunction;
+import org.jbpm.simulation.impl.rules.HistogramAccumulateFunction;
+import org.jbpm.simulation.impl.rules.StatisticsAccumulateFunction;
+import org.jbpm.simulation.util.SimulationUtils;
+import org.kie.api.KieBase;
+import org.kie.api.io.Resource;
+import org.kie.api.io.ResourceType;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderConfiguration;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.builder.conf.AccumulateFunctionOption;
+import org.kie.internal.io.ResourceFactory;
+
+/**
+ * Bounded LRU cache of compiled rule bases used by <code>WorkingMemorySimulationRepository</code> keyed by hash
+ * of the rule resources. Compiled rule bases are shared, every repository creates only its own session.
+ * When storage directory is given (<code>org.jbpm.simulation.rules.kbase.dir</code> system property for the shared
+ * instance) compiled rule bases are serialized there and loaded from it instead of compiling on cold start.
+ */
+public class RuleBaseCache {
+
+    private static final RuleBaseCache INSTANCE = new RuleBaseCache(
+            Integer.parseInt(System.getProperty("org.jbpm.simulation.rules.cache.size", "10")),
+            System.getProperty("org.jbpm.simulation.rules.kbase.dir") == null ? null 
+                    : new File(System.getProperty("org.jbpm.simulation.rules.kbase.dir")));
+
+    public static RuleBaseCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxSize;
+    private final File storageDirectory;
+    private final Map<String, KieBase> ruleBases;
+
+    private AtomicLong hits = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+    private AtomicLong loads = new AtomicLong();
+
+    public RuleBaseCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    public RuleBaseCache(int maxSize, File storageDirectory) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1 but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.storageDirectory = storageDirectory;
+        this.ruleBases = new LinkedHashMap<String, KieBase>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, KieBase> eldest) {
+                return size() > RuleBaseCache.this.maxSize;
+            }
+        };
+    }
+
+    public KieBase get(Resource... rules) {
+        String[] content = new String[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            content[i] = read(rules[i]);
+        }
+        String hash = SimulationUtils.contentHash(content);
+        synchronized (ruleBases) {
+            KieBase kbase = ruleBases.get(hash);
+            if (kbase != null) {
+                hits.incrementAndGet();
+                return kbase;
+            }
+        }
+        misses.incrementAndGet();
+        // compile outside of the lock, in the worst case the same rules are compiled twice by concurrent runs
+        KieBase kbase = load(hash);
+        if (kbase == null) {
+            kbase = compile(content);
+            store(hash, kbase);
+        }
+        synchronized (ruleBases) {
+            KieBase existing = ruleBases.get(hash);
+            if (existing != null) {
+                return existing;
+            }
+            ruleBases.put(hash, kbase);
+        }
+        return kbase;
+    }
+
+    public void invalidateAll() {
+        synchronized (ruleBases) {
+            ruleBases.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (ruleBases) {
+            return ruleBases.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public File getStorageDirectory() {
+        return storageDirectory;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    // aggregates in the shipped rules are calculated with these functions over all events of the run
+    protected static KnowledgeBuilder newKnowledgeBuilder() {
+        KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+        conf.setOption(AccumulateFunctionOption.get(StatisticsAccumulateFunction.NAME, new StatisticsAccumulateFunction()));
+        conf.setOption(AccumulateFunctionOption.get(CountByAccumulateFunction.NAME, new CountByAccumulateFunction()));
+        conf.setOption(AccumulateFunctionOption.get(HistogramAccumulateFunction.NAME, new HistogramAccumulateFunction()));
+
+        return KnowledgeBuilderFactory.newKnowledgeBuilder(conf);
+    }
+
+    protected KieBase compile(String[] content) {
+        KnowledgeBuilder kbuilder = newKnowledgeBuilder();
+        for (String rules : content) {
+            kbuilder.add(ResourceFactory.newByteArrayResource(toBytes(rules)), ResourceType.DRL);
+        }
+        if (kbuilder.hasErrors()) {
+            throw new RuntimeException("Error while building knowledge base: " + kbuilder.getErrors());
+        }
+        return kbuilder.newKnowledgeBase();
+    }
+
+    protected KieBase load(String hash) {
+        if (storageDirectory == null) {
+            return null;
+        }
+        File file = new File(storageDirectory, hash + ".kbase");
+        if (!file.isFile()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            KieBase kbase = (KieBase) DroolsStreamUtils.streamIn(in);
+            loads.incrementAndGet();
+
+            return kbase;
+        } catch (Exception e) {
+            // stale or incompatible file, compile it again
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    protected void store(String hash, KieBase kbase) {
+        if (storageDirectory == null) {
+            return;
+        }
+        if (!storageDirectory.isDirectory() && !storageDirectory.mkdirs()) {
+            throw new IllegalStateException("Unable to create directory " + storageDirectory);
+        }
+        File file = new File(storageDirectory, hash + ".kbase");
+        File tmp = new File(storageDirectory, hash + ".kbase.tmp");
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(tmp));
+            DroolsStreamUtils.streamOut(out, kbase);
+            out.close();
+            out = null;
+            // rename so concurrent readers never see partially written file
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw new IllegalStateException("Unable to store knowledge base in " + file, e);
+        } finally {
+            close(out);
+        }
+    }
+
+    private static String read(Resource resource) {
+        InputStream in = null;
+        try {
+            in = resource.getInputStream();
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                content.write(buffer, 0, read);
+            }
+            return content.toString("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read rules from " + resource, e);
+        } finally {
+            close(in);
+        }
+    }
+
+    private static byte[] toBytes(String content) {
+        try {
+            return content.getBytes("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
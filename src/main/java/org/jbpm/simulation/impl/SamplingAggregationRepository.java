@@ -0,0 +1,151 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+import org.jbpm.simulation.impl.stats.ReservoirSample;
+import org.jbpm.simulation.impl.time.RandomStreams;
+
+/**
+ * Streaming aggregation repository that in addition keeps a uniform random sample of raw events,
+ * at most configured number of events per activity and of traces (all events of one process instance)
+ * per path. Memory does not grow with number of instances while the samples stay representative for
+ * drill down. Traces are built from events stored since previous process instance end so events
+ * must be stored in the order they are simulated. Traces longer than <code>maxTraceLength</code>
+ * (e.g. when process instance end events are filtered out) are dropped instead of being collected.
+ */
+public class SamplingAggregationRepository extends StreamingAggregationRepository {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 10;
+    public static final int DEFAULT_MAX_TRACE_LENGTH = 10000;
+
+    private final int activitySampleSize;
+    private final int pathSampleSize;
+    private final Random random;
+
+    private Map<String, ReservoirSample<SimulationEvent>> activitySamples = new LinkedHashMap<String, ReservoirSample<SimulationEvent>>();
+    private Map<String, ReservoirSample<List<SimulationEvent>>> pathSamples = new LinkedHashMap<String, ReservoirSample<List<SimulationEvent>>>();
+    private List<SimulationEvent> currentTrace = new ArrayList<SimulationEvent>();
+    private int maxTraceLength = DEFAULT_MAX_TRACE_LENGTH;
+    // set when current trace was dropped, events are ignored until next process instance end
+    private boolean traceDropped;
+    private EventRecord record = new EventRecord();
+
+    public SamplingAggregationRepository() {
+        this(DEFAULT_SAMPLE_SIZE, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public SamplingAggregationRepository(int activitySampleSize, int pathSampleSize) {
+        this(activitySampleSize, pathSampleSize, RandomStreams.randomSeed());
+    }
+
+    public SamplingAggregationRepository(int activitySampleSize, int pathSampleSize, long seed) {
+        if (activitySampleSize < 1 || pathSampleSize < 1) {
+            throw new IllegalArgumentException("Sample sizes must be positive but were " 
+                    + activitySampleSize + " and " + pathSampleSize);
+        }
+        this.activitySampleSize = activitySampleSize;
+        this.pathSampleSize = pathSampleSize;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public synchronized void storeEvent(SimulationEvent event) {
+        super.storeEvent(event);
+
+        if (event instanceof ProcessInstanceEndSimulationEvent) {
+            if (traceDropped) {
+                // incomplete trace would not be representative
+                traceDropped = false;
+                return;
+            }
+            String pathId = ((ProcessInstanceEndSimulationEvent) event).getPathId();
+            currentTrace.add(event);
+            ReservoirSample<List<SimulationEvent>> sample = pathSamples.get(pathId);
+            if (sample == null) {
+                sample = new ReservoirSample<List<SimulationEvent>>(pathSampleSize, random);
+                pathSamples.put(pathId, sample);
+            }
+            if (sample.offer(currentTrace)) {
+                currentTrace = new ArrayList<SimulationEvent>();
+            } else {
+                // trace was not taken, reuse the list for the next one
+                currentTrace.clear();
+            }
+            return;
+        }
+        if (!traceDropped) {
+            if (currentTrace.size() < maxTraceLength) {
+                currentTrace.add(event);
+            } else {
+                currentTrace.clear();
+                traceDropped = true;
+            }
+        }
+
+        record.read(event);
+        if (record.activityName != null) {
+            ReservoirSample<SimulationEvent> sample = activitySamples.get(record.activityName);
+            if (sample == null) {
+                sample = new ReservoirSample<SimulationEvent>(activitySampleSize, random);
+                activitySamples.put(record.activityName, sample);
+            }
+            sample.offer(event);
+        }
+    }
+
+    public synchronized Set<String> getSampledActivities() {
+        return new LinkedHashSet<String>(activitySamples.keySet());
+    }
+
+    public synchronized List<SimulationEvent> getActivitySample(String activityName) {
+        ReservoirSample<SimulationEvent> sample = activitySamples.get(activityName);
+        if (sample == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<SimulationEvent>(sample.getItems());
+    }
+
+    public synchronized Set<String> getSampledPaths() {
+        return new LinkedHashSet<String>(pathSamples.keySet());
+    }
+
+    public synchronized List<List<SimulationEvent>> getPathSample(String pathId) {
+        ReservoirSample<List<SimulationEvent>> sample = pathSamples.get(pathId);
+        if (sample == null) {
+            return Collections.emptyList();
+        }
+        List<List<SimulationEvent>> traces = new ArrayList<List<SimulationEvent>>();
+        for (List<SimulationEvent> trace : sample.getItems()) {
+            traces.add(new ArrayList<SimulationEvent>(trace));
+        }
+        return traces;
+    }
+
+    public int getActivitySampleSize() {
+        return activitySampleSize;
+    }
+
+    public int getPathSampleSize() {
+        return pathSampleSize;
+    }
+
+    public synchronized int getMaxTraceLength() {
+        return maxTraceLength;
+    }
+
+    public synchronized void setMaxTraceLength(int maxTraceLength) {
+        if (maxTraceLength < 1) {
+            throw new IllegalArgumentException("Maximal trace length must be positive but was " + maxTraceLength);
+        }
+        this.maxTraceLength = maxTraceLength;
+    }
+}
@@ -4,7 +4,9 @@ import org.drools.core.command.impl.GenericCommand;
 import org.drools.core.command.impl.KnowledgeCommandContext;
 import org.drools.core.time.SessionPseudoClock;
 import org.jbpm.simulation.SimulationContext;
+import org.jbpm.simulation.SimulationEvent;
 import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.impl.SimulationEventDispatcher.EventFactory;
 import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
 import org.jbpm.workflow.core.node.ActionNode;
 import org.jbpm.workflow.core.node.CatchLinkNode;
@@ -47,7 +49,12 @@ public class SimulateProcessPathCommand implements GenericCommand<Void> {
         this.path = path;
     }
     
-    public Void execute(Context context) {
+    private static boolean factoriesRegistered = false;
+    
+    protected static synchronized void registerNodeInstanceFactories() {
+        if (factoriesRegistered) {
+            return;
+        }
         NodeInstanceFactoryRegistry n = NodeInstanceFactoryRegistry.INSTANCE;
         
         n.register( RuleSetNode.class,
@@ -92,6 +99,12 @@ public class SimulateProcessPathCommand implements GenericCommand<Void> {
         n.register(ThrowLinkNode.class, new CreateNewNodeFactory(
                 SimulationNodeInstance.class));
         
+        factoriesRegistered = true;
+    }
+    
+    public Void execute(Context context) {
+        registerNodeInstanceFactories();
+        
         KieSession session = ((KnowledgeCommandContext)context).getKieSession();
         simContext.setClock((SessionPseudoClock) session.getSessionClock());
         simContext.setCurrentPath(path);
@@ -105,11 +118,16 @@ public class SimulateProcessPathCommand implements GenericCommand<Void> {
         simContext.getExecutedNodes().clear();
         simContext.incrementProcessInstanceId();
         
-        ProcessInstance pi = session.startProcess(processId);
-        long instanceId = session.getId()+pi.getId();
-        simContext.getRepository().storeEvent(new ProcessInstanceEndSimulationEvent(processId, instanceId,
-                simContext.getStartTime(), simContext.getMaxEndTime(), path.getPathId(),
-                pi.getProcessName(), pi.getProcess().getVersion()));
+        final ProcessInstance pi = session.startProcess(processId);
+        final long instanceId = session.getId()+pi.getId();
+        simContext.storeEvent(simContext.getEventDispatcher().fireProcessInstanceEnd(new EventFactory() {
+            
+            public SimulationEvent newEvent() {
+                return new ProcessInstanceEndSimulationEvent(processId, instanceId,
+                        simContext.getStartTime(), simContext.getMaxEndTime(), path.getPathId(),
+                        pi.getProcessName(), pi.getProcess().getVersion());
+            }
+        }, processId, instanceId, simContext.getStartTime(), simContext.getMaxEndTime(), path.getPathId()));
         
         return null;
     }
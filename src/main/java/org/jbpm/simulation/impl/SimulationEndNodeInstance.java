@@ -2,7 +2,6 @@ package org.jbpm.simulation.impl;
 
 import org.jbpm.simulation.ActivitySimulator;
 import org.jbpm.simulation.SimulationContext;
-import org.jbpm.simulation.SimulationEvent;
 import org.jbpm.workflow.instance.NodeInstanceContainer;
 import org.jbpm.workflow.instance.node.EndNodeInstance;
 import org.kie.api.runtime.process.NodeInstance;
@@ -16,9 +15,7 @@ public class SimulationEndNodeInstance extends EndNodeInstance {
         SimulationContext context = SimulationContext.getContext();
         
         ActivitySimulator simulator = context.getRegistry().getSimulator(getNode());
-        SimulationEvent event = simulator.simulate(this, context);
-        
-        context.getRepository().storeEvent(event);
+        context.storeEvent(simulator.simulate(this, context));
         ((NodeInstanceContainer) getNodeInstanceContainer()).nodeInstanceCompleted(this, null);
     }
 
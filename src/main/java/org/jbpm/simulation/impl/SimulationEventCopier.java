@@ -0,0 +1,22 @@
+package org.jbpm.simulation.impl;
+
+import org.jbpm.simulation.SimulationEvent;
+
+/**
+ * Creates copies of simulation events so they can be handed to repositories that modify events
+ * (e.g. <code>onevent.simulation.rules.drl</code>) without touching the originals. Copies are equal in
+ * content but get a new UUID. Events of other than the built-in types cannot be copied faithfully and
+ * are returned as they are. Not thread safe.
+ */
+public class SimulationEventCopier {
+
+    private EventRecord record = new EventRecord();
+
+    public SimulationEvent copy(SimulationEvent event) {
+        record.read(event);
+        if (record.kind == EventRecord.OTHER) {
+            return event;
+        }
+        return record.toEvent();
+    }
+}
@@ -0,0 +1,112 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jbpm.simulation.PrimitiveSimulationEventListener;
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationEventFilter;
+import org.jbpm.simulation.SimulationEventListener;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+
+/**
+ * Delivers simulated events to the registered listeners. Simulators fire plain values together with
+ * a factory of the event object which is used only when the repository or some listener needs it; 
+ * the returned event is the one that should be stored in the repository, <code>null</code> if the 
+ * repository is not interested in it.
+ */
+public class SimulationEventDispatcher {
+
+    /**
+     * Creates the event object of a fired event on demand.
+     */
+    public interface EventFactory {
+        
+        SimulationEvent newEvent();
+    }
+
+    private SimulationEventFilter repositoryFilter;
+    private List<SimulationEventListener> eventListeners = new ArrayList<SimulationEventListener>();
+    private List<PrimitiveSimulationEventListener> primitiveListeners = new ArrayList<PrimitiveSimulationEventListener>();
+
+    public void addListener(SimulationEventListener listener) {
+        if (listener instanceof PrimitiveSimulationEventListener) {
+            primitiveListeners.add((PrimitiveSimulationEventListener) listener);
+        } else {
+            eventListeners.add(listener);
+        }
+    }
+
+    public void removeListener(SimulationEventListener listener) {
+        primitiveListeners.remove(listener);
+        eventListeners.remove(listener);
+    }
+
+    public SimulationEventFilter getRepositoryFilter() {
+        return repositoryFilter;
+    }
+
+    /**
+     * Restricts events stored in the repository, <code>null</code> (default) stores all events.
+     */
+    public void setRepositoryFilter(SimulationEventFilter repositoryFilter) {
+        this.repositoryFilter = repositoryFilter;
+    }
+
+    public boolean isEventRequired(Class<? extends SimulationEvent> eventType, String processId, String nodeId) {
+        if (accepts(repositoryFilter, eventType, processId, nodeId)) {
+            return true;
+        }
+        for (int i = 0; i < eventListeners.size(); i++) {
+            if (accepts(eventListeners.get(i).getFilter(), eventType, processId, nodeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public SimulationEvent fireNodeEvent(EventFactory factory, Class<? extends SimulationEvent> eventType, 
+            String processId, long processInstanceId, String nodeId, String nodeName, long startTime, long endTime, 
+            long duration, long waitTime, double resourceCost, double resourceUtilization) {
+        SimulationEvent event = isEventRequired(eventType, processId, nodeId) ? factory.newEvent() : null;
+        for (int i = 0; i < primitiveListeners.size(); i++) {
+            PrimitiveSimulationEventListener listener = primitiveListeners.get(i);
+            if (accepts(listener.getFilter(), eventType, processId, nodeId)) {
+                listener.onNodeEvent(eventType, processId, processInstanceId, nodeId, nodeName, startTime, endTime, 
+                        duration, waitTime, resourceCost, resourceUtilization);
+            }
+        }
+        return deliver(event, eventType, processId, nodeId);
+    }
+
+    public SimulationEvent fireProcessInstanceEnd(EventFactory factory, String processId, long processInstanceId, 
+            long startTime, long endTime, String pathId) {
+        SimulationEvent event = isEventRequired(ProcessInstanceEndSimulationEvent.class, processId, null) ? factory.newEvent() : null;
+        for (int i = 0; i < primitiveListeners.size(); i++) {
+            PrimitiveSimulationEventListener listener = primitiveListeners.get(i);
+            if (accepts(listener.getFilter(), ProcessInstanceEndSimulationEvent.class, processId, null)) {
+                listener.onProcessInstanceEnd(processId, processInstanceId, startTime, endTime, pathId);
+            }
+        }
+        return deliver(event, ProcessInstanceEndSimulationEvent.class, processId, null);
+    }
+
+    private SimulationEvent deliver(SimulationEvent event, Class<? extends SimulationEvent> eventType, 
+            String processId, String nodeId) {
+        if (event == null) {
+            return null;
+        }
+        for (int i = 0; i < eventListeners.size(); i++) {
+            SimulationEventListener listener = eventListeners.get(i);
+            if (accepts(listener.getFilter(), eventType, processId, nodeId)) {
+                listener.onEvent(event);
+            }
+        }
+        return accepts(repositoryFilter, eventType, processId, nodeId) ? event : null;
+    }
+
+    private static boolean accepts(SimulationEventFilter filter, Class<? extends SimulationEvent> eventType, 
+            String processId, String nodeId) {
+        return filter == null || filter.accept(eventType, processId, nodeId);
+    }
+}
@@ -5,7 +5,6 @@ import java.util.concurrent.TimeUnit;
 
 import org.jbpm.simulation.ActivitySimulator;
 import org.jbpm.simulation.SimulationContext;
-import org.jbpm.simulation.SimulationEvent;
 import org.jbpm.workflow.instance.impl.NodeInstanceImpl;
 import org.kie.api.definition.process.Connection;
 import org.kie.api.definition.process.Node;
@@ -21,9 +20,7 @@ public class SimulationNodeInstance extends NodeInstanceImpl {
         SimulationContext context = SimulationContext.getContext();
        
         ActivitySimulator simulator = context.getRegistry().getSimulator(getNode());
-        SimulationEvent event = simulator.simulate(this, context);
-        
-        context.getRepository().storeEvent(event);
+        context.storeEvent(simulator.simulate(this, context));
         long thisNodeCurrentTime = context.getClock().getCurrentTime();
         
         List<Connection> outgoing = getNode().getOutgoingConnections().get(org.jbpm.workflow.core.Node.CONNECTION_DEFAULT_TYPE);
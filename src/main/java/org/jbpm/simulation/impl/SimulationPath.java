@@ -15,6 +15,19 @@ public class SimulationPath {
     
     private double probability;
     
+    public SimulationPath() {
+        
+    }
+    
+    public SimulationPath(SimulationPath other) {
+        this.pathId = other.pathId;
+        this.sequenceFlowsIds = new ArrayList<String>(other.sequenceFlowsIds);
+        this.activityIds = new ArrayList<String>(other.activityIds);
+        this.boundaryEventIds = new ArrayList<String>(other.boundaryEventIds);
+        this.origPaths = new ArrayList<PathContext>(other.origPaths);
+        this.probability = other.probability;
+    }
+    
     public double getProbability() {
         return probability;
     }
@@ -4,7 +4,6 @@ import java.util.List;
 
 import org.jbpm.simulation.ActivitySimulator;
 import org.jbpm.simulation.SimulationContext;
-import org.jbpm.simulation.SimulationEvent;
 import org.jbpm.workflow.core.Node;
 import org.jbpm.workflow.instance.node.StartNodeInstance;
 import org.kie.api.definition.process.Connection;
@@ -20,9 +19,7 @@ public class SimulationStartNodeInstance extends StartNodeInstance {
         SimulationContext context = SimulationContext.getContext();
 
         ActivitySimulator simulator = context.getRegistry().getSimulator(getNode());
-        SimulationEvent event = simulator.simulate(this, context);
-        
-        context.getRepository().storeEvent(event);
+        context.storeEvent(simulator.simulate(this, context));
         
         
         List<Connection> outgoing = getNode().getOutgoingConnections().get(Node.CONNECTION_DEFAULT_TYPE);
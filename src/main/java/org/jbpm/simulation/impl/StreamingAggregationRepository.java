@@ -0,0 +1,251 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jbpm.simulation.AggregatedSimulationEvent;
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.SimulationRepository;
+import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.AggregatedActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.AggregatedEndEventSimulationEvent;
+import org.jbpm.simulation.impl.events.AggregatedProcessSimulationEvent;
+import org.jbpm.simulation.impl.events.EndSimulationEvent;
+import org.jbpm.simulation.impl.events.HTAggregatedSimulationEvent;
+import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+import org.jbpm.simulation.impl.stats.LatencyHistogram;
+import org.jbpm.simulation.impl.stats.OnlineStatistics;
+
+/**
+ * Repository that aggregates events as they are stored and drops them afterwards, so memory
+ * is proportional to number of activities instead of number of events. Produces the same aggregated
+ * events as <code>default.simulation.rules.drl</code> but over all events of the run.
+ */
+public class StreamingAggregationRepository implements SimulationRepository {
+
+    private SimulationInfo simulationInfo;
+    
+    // keyed by activity name as done by the rules
+    private Map<String, ActivityStatistics> activities = new LinkedHashMap<String, ActivityStatistics>();
+    private Map<String, HumanTaskStatistics> humanTasks = new LinkedHashMap<String, HumanTaskStatistics>();
+    private Map<String, ActivityStatistics> endEvents = new LinkedHashMap<String, ActivityStatistics>();
+    
+    private OnlineStatistics processDurations = new OnlineStatistics();
+    private LatencyHistogram processHistogram = new LatencyHistogram();
+    private Set<String> processInfo = new LinkedHashSet<String>();
+    private Map<String, Integer> pathInstances = new HashMap<String, Integer>();
+    
+    public synchronized void storeEvent(SimulationEvent event) {
+        if (event instanceof ActivitySimulationEvent) {
+            ActivitySimulationEvent activityEvent = (ActivitySimulationEvent) event;
+            
+            ActivityStatistics stats = activities.get(activityEvent.getActivityName());
+            if (stats == null) {
+                stats = new ActivityStatistics(activityEvent.getActivityName(), activityEvent.getActivityId());
+                activities.put(activityEvent.getActivityName(), stats);
+            }
+            stats.record(activityEvent.getDuration());
+        } else if (event instanceof HumanTaskActivitySimulationEvent) {
+            HumanTaskActivitySimulationEvent htEvent = (HumanTaskActivitySimulationEvent) event;
+            
+            HumanTaskStatistics stats = humanTasks.get(htEvent.getActivityName());
+            if (stats == null) {
+                stats = new HumanTaskStatistics(htEvent.getActivityName(), htEvent.getActivityId());
+                humanTasks.put(htEvent.getActivityName(), stats);
+            }
+            stats.record(htEvent.getDuration());
+            stats.waitTime.addValue(htEvent.getWaitTime());
+            stats.waitTimeHistogram.recordValue(htEvent.getWaitTime());
+            stats.resourceUtilization.addValue(htEvent.getResourceUtilization());
+            stats.resourceCost.addValue(htEvent.getResourceCost());
+        } else if (event instanceof EndSimulationEvent) {
+            EndSimulationEvent endEvent = (EndSimulationEvent) event;
+            
+            ActivityStatistics stats = endEvents.get(endEvent.getActivityName());
+            if (stats == null) {
+                stats = new ActivityStatistics(endEvent.getActivityName(), endEvent.getActivityId());
+                endEvents.put(endEvent.getActivityName(), stats);
+            }
+            stats.record(endEvent.getProcessDuration());
+        } else if (event instanceof ProcessInstanceEndSimulationEvent) {
+            ProcessInstanceEndSimulationEvent processEvent = (ProcessInstanceEndSimulationEvent) event;
+            
+            processDurations.addValue(processEvent.getProcessDuration());
+            processHistogram.recordValue(processEvent.getProcessDuration());
+            processInfo.add(processEvent.getProcessId() + "@" + processEvent.getProcessName() + "@" + processEvent.getProcessVersion());
+            Integer current = pathInstances.get(processEvent.getPathId());
+            pathInstances.put(processEvent.getPathId(), current == null ? 1 : current + 1);
+        }
+    }
+    
+    public synchronized List<AggregatedSimulationEvent> getAggregatedEvents() {
+        List<AggregatedSimulationEvent> aggregated = new ArrayList<AggregatedSimulationEvent>();
+        
+        for (ActivityStatistics stats : activities.values()) {
+            AggregatedActivitySimulationEvent activityEvent = new AggregatedActivitySimulationEvent(stats.name, stats.id, 
+                    stats.duration.getMin(), stats.duration.getMean(), stats.duration.getMax(), stats.duration.getCount(), "");
+            activityEvent.setExecutionTimeHistogram(stats.copyOfHistogram());
+            aggregated.add(activityEvent);
+        }
+        for (HumanTaskStatistics stats : humanTasks.values()) {
+            HTAggregatedSimulationEvent htEvent = new HTAggregatedSimulationEvent(stats.name, stats.id, 
+                    stats.duration.getMin(), stats.duration.getMean(), stats.duration.getMax(), 
+                    stats.waitTime.getMin(), stats.waitTime.getMean(), stats.waitTime.getMax(), 
+                    stats.resourceUtilization.getMin(), stats.resourceUtilization.getMean(), stats.resourceUtilization.getMax(), 
+                    stats.duration.getCount(), 
+                    stats.resourceCost.getMean(), stats.resourceCost.getMin(), stats.resourceCost.getMax(), "userTask");
+            htEvent.setExecutionTimeHistogram(stats.copyOfHistogram());
+            LatencyHistogram waitTimeHistogram = new LatencyHistogram();
+            waitTimeHistogram.merge(stats.waitTimeHistogram);
+            htEvent.setWaitTimeHistogram(waitTimeHistogram);
+            aggregated.add(htEvent);
+        }
+        for (ActivityStatistics stats : endEvents.values()) {
+            aggregated.add(new AggregatedEndEventSimulationEvent(stats.name, stats.id, stats.duration.getMin(), 
+                    stats.duration.getMean(), stats.duration.getMax(), stats.duration.getCount(), "endEvent"));
+        }
+        if (processDurations.getCount() > 0) {
+            aggregated.add(getAggregatedProcessEvent());
+        }
+        
+        return aggregated;
+    }
+    
+    public synchronized AggregatedProcessSimulationEvent getAggregatedProcessEvent() {
+        AggregatedProcessSimulationEvent processEvent = new AggregatedProcessSimulationEvent(
+                new LinkedHashSet<String>(processInfo), processDurations.getMin(), 
+                processDurations.getMean(), processDurations.getMax());
+        processEvent.getPathNumberOfInstances().putAll(pathInstances);
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.merge(processHistogram);
+        processEvent.setExecutionTimeHistogram(histogram);
+        
+        return processEvent;
+    }
+
+    // statistics of activity or human task duration, includes variance which is not part of aggregated events
+    public synchronized OnlineStatistics getDurationStatistics(String activityName) {
+        ActivityStatistics stats = activities.get(activityName);
+        if (stats == null) {
+            stats = humanTasks.get(activityName);
+        }
+        return stats == null ? null : stats.duration;
+    }
+
+    /**
+     * Adds statistics collected by another repository, e.g. of another shard of the same simulation.
+     */
+    public void merge(StreamingAggregationRepository other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Repository cannot be merged with itself");
+        }
+        // never hold both locks so repositories merged into each other concurrently do not deadlock
+        StreamingAggregationRepository snapshot = new StreamingAggregationRepository();
+        synchronized (other) {
+            snapshot.mergeFrom(other);
+        }
+        synchronized (this) {
+            mergeFrom(snapshot);
+        }
+    }
+    
+    private void mergeFrom(StreamingAggregationRepository other) {
+        mergeStatistics(activities, other.activities);
+        mergeStatistics(humanTasks, other.humanTasks);
+        mergeStatistics(endEvents, other.endEvents);
+        
+        processDurations.merge(other.processDurations);
+        processHistogram.merge(other.processHistogram);
+        processInfo.addAll(other.processInfo);
+        for (Map.Entry<String, Integer> entry : other.pathInstances.entrySet()) {
+            Integer current = pathInstances.get(entry.getKey());
+            pathInstances.put(entry.getKey(), current == null ? entry.getValue() : current + entry.getValue());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T extends ActivityStatistics> void mergeStatistics(Map<String, T> target, Map<String, T> source) {
+        for (Map.Entry<String, T> entry : source.entrySet()) {
+            T stats = target.get(entry.getKey());
+            if (stats == null) {
+                stats = (T) entry.getValue().newEmpty();
+                target.put(entry.getKey(), stats);
+            }
+            stats.merge(entry.getValue());
+        }
+    }
+
+    public SimulationInfo getSimulationInfo() {
+        return this.simulationInfo;
+    }
+
+    public void setSimulationInfo(SimulationInfo simInfo) {
+        this.simulationInfo = simInfo;
+    }
+    
+    private static class ActivityStatistics {
+        String name;
+        String id;
+        OnlineStatistics duration = new OnlineStatistics();
+        LatencyHistogram durationHistogram = new LatencyHistogram();
+        
+        ActivityStatistics(String name, String id) {
+            this.name = name;
+            this.id = id;
+        }
+        
+        void record(long value) {
+            duration.addValue(value);
+            durationHistogram.recordValue(value);
+        }
+        
+        // aggregated events get their own copy so they are not affected by events stored later
+        LatencyHistogram copyOfHistogram() {
+            LatencyHistogram copy = new LatencyHistogram();
+            copy.merge(durationHistogram);
+            return copy;
+        }
+        
+        ActivityStatistics newEmpty() {
+            return new ActivityStatistics(name, id);
+        }
+        
+        void merge(ActivityStatistics other) {
+            duration.merge(other.duration);
+            durationHistogram.merge(other.durationHistogram);
+        }
+    }
+    
+    private static class HumanTaskStatistics extends ActivityStatistics {
+        OnlineStatistics waitTime = new OnlineStatistics();
+        LatencyHistogram waitTimeHistogram = new LatencyHistogram();
+        OnlineStatistics resourceUtilization = new OnlineStatistics();
+        OnlineStatistics resourceCost = new OnlineStatistics();
+        
+        HumanTaskStatistics(String name, String id) {
+            super(name, id);
+        }
+        
+        @Override
+        ActivityStatistics newEmpty() {
+            return new HumanTaskStatistics(name, id);
+        }
+        
+        @Override
+        void merge(ActivityStatistics other) {
+            super.merge(other);
+            HumanTaskStatistics otherHt = (HumanTaskStatistics) other;
+            waitTime.merge(otherHt.waitTime);
+            waitTimeHistogram.merge(otherHt.waitTimeHistogram);
+            resourceUtilization.merge(otherHt.resourceUtilization);
+            resourceCost.merge(otherHt.resourceCost);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.jbpm.simulation.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense int codes to strings in order of their first occurrence, <code>null</code> is encoded as -1.
+ */
+class StringDictionary {
+
+    private Map<String, Integer> codes = new HashMap<String, Integer>();
+    private List<String> values = new ArrayList<String>();
+
+    int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    String decode(int code) {
+        return code < 0 ? null : values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -8,17 +8,30 @@ import org.jbpm.simulation.SimulationEvent;
 import org.jbpm.simulation.impl.events.AggregatedActivitySimulationEvent;
 import org.jbpm.simulation.impl.events.AggregatedProcessSimulationEvent;
 import org.kie.api.io.Resource;
-import org.kie.api.io.ResourceType;
 import org.kie.api.runtime.KieSession;
-import org.kie.internal.builder.KnowledgeBuilder;
-import org.kie.internal.builder.KnowledgeBuilderFactory;
 import org.kie.internal.io.ResourceFactory;
 
+/**
+ * Repository that inserts events into a rule session to aggregate them. Shipped rules
+ * (<code>default.simulation.rules.drl</code>, <code>onevent.simulation.rules.drl</code>) aggregate
+ * all events of the run. To aggregate only the most recent events pass own rules that restrict
+ * the accumulate source with a sliding window, e.g.
+ * <pre>
+ * accumulate( ActivitySimulationEvent( $duration : duration, activityName == $name ) over window:length( 100 ),
+ *             $stats : statistics( $duration ) )
+ * </pre>
+ */
 public class WorkingMemorySimulationRepository extends InMemorySimulationRepository {
 
     private KieSession ksession;
     private boolean fireRulesOnStore = false;
     
+    // when firing rules on store, rules are fired once per batch of events instead of every event
+    private int batchSize = 1;
+    private long batchInterval = -1;
+    private int pendingEvents;
+    private long batchStartTime = -1;
+    
     public WorkingMemorySimulationRepository() {
         
     }
@@ -33,17 +46,8 @@ public class WorkingMemorySimulationRepository extends InMemorySimulationReposit
     
     public WorkingMemorySimulationRepository(boolean fireRulesOnStore, Resource... rules) {
         this.fireRulesOnStore = fireRulesOnStore;
-        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
-        
-        for (Resource path : rules) {
-        
-            kbuilder.add(path, ResourceType.DRL);
-        }
-        if (kbuilder.hasErrors()) {
-            throw new RuntimeException("Error while building knowledge base: " + kbuilder.getErrors());
-        }
-        
-        this.ksession = kbuilder.newKnowledgeBase().newKieSession();
+        // compiled rules are shared, only the session is created per repository
+        this.ksession = RuleBaseCache.getInstance().get(rules).newKieSession();
         try {
             // register global for aggregated events
             ksession.setGlobal("simulation", new ArrayList<AggregatedActivitySimulationEvent>());
@@ -58,47 +62,85 @@ public class WorkingMemorySimulationRepository extends InMemorySimulationReposit
     }
     
     public WorkingMemorySimulationRepository(boolean fireRulesOnStore, String... rules) {
-        this.fireRulesOnStore = fireRulesOnStore;
-        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
-        
-        for (String path : rules) {
-        
-            kbuilder.add(ResourceFactory.newClassPathResource(path), ResourceType.DRL);
-        }
-        if (kbuilder.hasErrors()) {
-            throw new RuntimeException("Error while building knowledge base: " + kbuilder.getErrors());
-        }
-        
-        this.ksession = kbuilder.newKnowledgeBase().newKieSession();
-        try {
-            // register global for aggregated events
-            ksession.setGlobal("simulation", new ArrayList<AggregatedActivitySimulationEvent>());
-        } catch (Exception e) {
-            // catch it as there could be no simulation global declared
+        this(fireRulesOnStore, classPathResources(rules));
+    }
+    
+    protected static Resource[] classPathResources(String... rules) {
+        Resource[] resources = new Resource[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            resources[i] = ResourceFactory.newClassPathResource(rules[i]);
         }
+        return resources;
     }
     
     public void storeEvent(SimulationEvent event) {
         super.storeEvent(event);
         ksession.insert(event);
         if (fireRulesOnStore) {
-            ksession.fireAllRules();
+            pendingEvents++;
+            if (batchStartTime < 0) {
+                batchStartTime = event.getEndTime();
+            }
+            if (pendingEvents >= batchSize 
+                    || (batchInterval > 0 && event.getEndTime() - batchStartTime >= batchInterval)) {
+                fireAllRules();
+            }
         }
     }
 
     public void fireAllRules() {
+        pendingEvents = 0;
+        batchStartTime = -1;
         ksession.fireAllRules();
     }
     
+    /**
+     * Fires rules for events of not yet completed batch, if any.
+     */
+    public void flush() {
+        if (pendingEvents > 0) {
+            fireAllRules();
+        }
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Number of stored events after which rules are fired, applies only when rules are fired on store.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1 but was " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchInterval() {
+        return batchInterval;
+    }
+
+    /**
+     * Simulated time in milliseconds after which rules are fired even if the batch is not full yet,
+     * disabled when not positive. Applies only when rules are fired on store.
+     */
+    public void setBatchInterval(long batchInterval) {
+        this.batchInterval = batchInterval;
+    }
+    
     public KieSession getSession() {
         return this.ksession;
     }
     
     public List<AggregatedSimulationEvent> getAggregatedEvents() {
+        // results are read so include events of the current batch as well
+        flush();
         return (List<AggregatedSimulationEvent>) this.ksession.getGlobal("simulation");
     }
     
     public Object getGlobal(String globalName) {
+        flush();
         return  this.ksession.getGlobal(globalName);
     }
 
@@ -0,0 +1,117 @@
+package org.jbpm.simulation.impl.engine;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.jbpm.simulation.SimulationContext;
+import org.jbpm.simulation.SimulationDataProvider;
+import org.jbpm.simulation.impl.SimulationPath;
+
+/**
+ * Distributes requested number of instances among paths according to their probability and 
+ * starts them from event calendar ordered by their start time.
+ */
+public abstract class AbstractSimulationEngine {
+
+    protected SimulationContext context;
+    
+    private PriorityQueue<ScheduledInstance> calendar = new PriorityQueue<ScheduledInstance>();
+    private long sequence = 0;
+    
+    public AbstractSimulationEngine(SimulationContext context) {
+        this.context = context;
+    }
+    
+    public void simulate(List<SimulationPath> paths, int numberOfAllInstances, long interval) {
+        SimulationDataProvider provider = context.getDataProvider();
+        
+        int remainingInstances = numberOfAllInstances;
+        for (SimulationPath path : paths) {
+            
+            double probability = provider.calculatePathProbability(path);
+            
+            // count how many instances should current path have
+            if (numberOfAllInstances > 1) {
+                int instancesOfPath = (int) Math.round((numberOfAllInstances * probability));
+                
+                // ensure that we won't exceed total number of instance due to rounding
+                if (instancesOfPath > remainingInstances) {
+                    instancesOfPath = remainingInstances;
+                }
+                
+                remainingInstances -= instancesOfPath;
+                
+                for (int i = 0; i < instancesOfPath; i++) {
+                    schedule(interval * i, path);
+                }
+            } else {
+                schedule(interval, path);
+                break;
+            }
+        }
+        
+        run(System.currentTimeMillis());
+    }
+    
+    public void schedule(long distance, SimulationPath path) {
+        calendar.add(new ScheduledInstance(distance, sequence++, path));
+    }
+    
+    public void run(long startTime) {
+        beforeRun();
+        try {
+            while (!calendar.isEmpty()) {
+                ScheduledInstance instance = calendar.poll();
+                
+                execute(instance.getPath(), startTime + instance.getDistance());
+            }
+        } finally {
+            afterRun();
+        }
+    }
+    
+    public int getNumberOfScheduledInstances() {
+        return calendar.size();
+    }
+    
+    protected void beforeRun() {
+        
+    }
+    
+    protected void afterRun() {
+        
+    }
+    
+    protected abstract void execute(SimulationPath path, long instanceStartTime);
+    
+    private static class ScheduledInstance implements Comparable<ScheduledInstance> {
+        
+        private long distance;
+        private long sequence;
+        private SimulationPath path;
+        
+        ScheduledInstance(long distance, long sequence, SimulationPath path) {
+            this.distance = distance;
+            this.sequence = sequence;
+            this.path = path;
+        }
+
+        public long getDistance() {
+            return distance;
+        }
+
+        public SimulationPath getPath() {
+            return path;
+        }
+
+        public int compareTo(ScheduledInstance o) {
+            if (distance != o.distance) {
+                return distance < o.distance ? -1 : 1;
+            }
+            if (sequence != o.sequence) {
+                return sequence < o.sequence ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.jbpm.simulation.impl.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.time.SessionPseudoClock;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.process.ProcessInstance;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * Keeps created sessions so they can be reused for subsequent simulated instances instead of 
+ * creating new session for each of them. Sessions are reset when returned to the pool.
+ */
+public class KieSessionPool {
+
+    private KieContainer kieContainer;
+    private String sessionName;
+    private int maxIdle;
+    
+    private LinkedList<KieSession> idle = new LinkedList<KieSession>();
+    private int createdSessions = 0;
+    private long reusedSessions = 0;
+    
+    public KieSessionPool(KieContainer kieContainer, String sessionName, int maxIdle) {
+        this.kieContainer = kieContainer;
+        this.sessionName = sessionName;
+        this.maxIdle = maxIdle;
+    }
+    
+    public synchronized KieSession borrow() {
+        if (!idle.isEmpty()) {
+            reusedSessions++;
+            return idle.removeFirst();
+        }
+        createdSessions++;
+        return kieContainer.newKieSession(sessionName);
+    }
+    
+    public void release(KieSession session) {
+        reset(session);
+        synchronized (this) {
+            if (idle.size() < maxIdle) {
+                idle.addLast(session);
+                return;
+            }
+        }
+        session.dispose();
+    }
+    
+    protected void reset(KieSession session) {
+        // abort process instances that did not complete
+        for (ProcessInstance processInstance : new ArrayList<ProcessInstance>(session.getProcessInstances())) {
+            session.abortProcessInstance(processInstance.getId());
+        }
+        // clean up working memory
+        for (Object handle : new ArrayList<Object>(session.getFactHandles())) {
+            session.retract((FactHandle) handle);
+        }
+        // rewind clock
+        SessionPseudoClock clock = (SessionPseudoClock) session.getSessionClock();
+        clock.advanceTime(-clock.getCurrentTime(), TimeUnit.MILLISECONDS);
+    }
+    
+    public synchronized void dispose() {
+        for (KieSession session : idle) {
+            session.dispose();
+        }
+        idle.clear();
+    }
+
+    public synchronized int getCreatedSessions() {
+        return createdSessions;
+    }
+
+    public synchronized long getReusedSessions() {
+        return reusedSessions;
+    }
+}
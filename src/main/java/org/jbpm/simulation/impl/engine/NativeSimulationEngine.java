@@ -0,0 +1,116 @@
+package org.jbpm.simulation.impl.engine;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.time.impl.PseudoClockScheduler;
+import org.jbpm.simulation.SimulationContext;
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.SimulationInfo;
+import org.jbpm.simulation.impl.SimulationEventDispatcher.EventFactory;
+import org.jbpm.simulation.impl.SimulationPath;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+import org.kie.api.KieBase;
+import org.kie.api.definition.process.Process;
+
+/**
+ * Executes simulation without creating jBPM process instances. Every path is compiled once into 
+ * <code>SimulationPlan</code> and node visits are delegated to the same <code>ActivitySimulator</code>s
+ * that are used by the Drools based mode.
+ */
+public class NativeSimulationEngine extends AbstractSimulationEngine {
+
+    private Process process;
+    private PseudoClockScheduler clock;
+    
+    private Map<SimulationPath, SimulationPlan> plans = new IdentityHashMap<SimulationPath, SimulationPlan>();
+    
+    public NativeSimulationEngine(String processId, SimulationContext context, KieBase kieBase) {
+        super(context);
+        this.process = kieBase.getProcess(processId);
+        if (this.process == null) {
+            throw new IllegalArgumentException("Process " + processId + " not found in knowledge base");
+        }
+    }
+    
+    @Override
+    public void schedule(long distance, SimulationPath path) {
+        if (!plans.containsKey(path)) {
+            plans.put(path, new SimulationPlan(process, path, context.getRegistry()));
+        }
+        super.schedule(distance, path);
+    }
+    
+    @Override
+    protected void beforeRun() {
+        this.clock = new PseudoClockScheduler();
+        context.setClock(clock);
+        
+        SimulationInfo simInfo = context.getRepository().getSimulationInfo();
+        if (simInfo != null) {
+            simInfo.setProcessName(process.getName());
+            simInfo.setProcessVersion(process.getVersion());
+        }
+    }
+    
+    @Override
+    protected void execute(final SimulationPath path, long instanceStartTime) {
+        final SimulationPlan plan = plans.get(path);
+        
+        clock.advanceTime(instanceStartTime - clock.getCurrentTime(), TimeUnit.MILLISECONDS);
+        
+        context.setCurrentPath(path);
+        // reset max end time before starting new instance
+        context.resetMaxEndTime();
+        context.getExecutedNodes().clear();
+        context.incrementProcessInstanceId();
+        
+        visit(plan.getStart());
+        
+        context.storeEvent(context.getEventDispatcher().fireProcessInstanceEnd(new EventFactory() {
+            
+            public SimulationEvent newEvent() {
+                return new ProcessInstanceEndSimulationEvent(plan.getProcessId(), context.getProcessInstanceId(),
+                        context.getStartTime(), context.getMaxEndTime(), path.getPathId(),
+                        plan.getProcessName(), plan.getProcessVersion());
+            }
+        }, plan.getProcessId(), context.getProcessInstanceId(), context.getStartTime(), context.getMaxEndTime(), path.getPathId()));
+    }
+    
+    protected void visit(PlannedNode node) {
+        context.storeEvent(node.getSimulator().simulate(node, context));
+        
+        List<PlannedNode> targets = node.getTargets();
+        switch (node.getKind()) {
+        case START:
+            for (int i = 0; i < targets.size(); i++) {
+                visit(targets.get(i));
+            }
+            break;
+        case NODE:
+            long thisNodeCurrentTime = context.getClock().getCurrentTime();
+            List<String> connectionIds = node.getConnectionIds();
+            for (int i = 0; i < targets.size(); i++) {
+                String connectionId = connectionIds.get(i);
+                // handle loops
+                if (context.isLoopLimitExceeded(connectionId)) {
+                    continue;
+                }
+                context.addExecutedNode(connectionId);
+                visit(targets.get(i));
+                // reset clock to the value of this node
+                context.getClock().advanceTime((thisNodeCurrentTime - context.getClock().getCurrentTime()), TimeUnit.MILLISECONDS);
+            }
+            // handle boundary events
+            for (PlannedNode boundaryEvent : node.getBoundaryEvents()) {
+                visit(boundaryEvent);
+            }
+            break;
+        default:
+            // end of the path
+            break;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.jbpm.simulation.impl.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jbpm.simulation.ActivitySimulator;
+import org.jbpm.workflow.core.node.EndNode;
+import org.jbpm.workflow.core.node.StartNode;
+import org.kie.api.definition.process.Node;
+
+public class PlannedNode {
+
+    public enum Kind {
+        START,
+        END,
+        NODE;
+    }
+    
+    private SimulationPlan plan;
+    private Node node;
+    private String uniqueId;
+    private Kind kind;
+    private ActivitySimulator simulator;
+    
+    private List<String> connectionIds = new ArrayList<String>();
+    private List<PlannedNode> targets = new ArrayList<PlannedNode>();
+    private List<PlannedNode> boundaryEvents = new ArrayList<PlannedNode>();
+    
+    public PlannedNode(SimulationPlan plan, Node node, ActivitySimulator simulator) {
+        this.plan = plan;
+        this.node = node;
+        this.uniqueId = (String) node.getMetaData().get("UniqueId");
+        this.simulator = simulator;
+        if (node instanceof StartNode) {
+            this.kind = Kind.START;
+        } else if (node instanceof EndNode) {
+            this.kind = Kind.END;
+        } else {
+            this.kind = Kind.NODE;
+        }
+    }
+    
+    public void addTarget(String connectionId, PlannedNode target) {
+        this.connectionIds.add(connectionId);
+        this.targets.add(target);
+    }
+    
+    public void addBoundaryEvent(PlannedNode boundaryEvent) {
+        this.boundaryEvents.add(boundaryEvent);
+    }
+
+    public SimulationPlan getPlan() {
+        return plan;
+    }
+
+    public Node getNode() {
+        return node;
+    }
+
+    public String getUniqueId() {
+        return uniqueId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public ActivitySimulator getSimulator() {
+        return simulator;
+    }
+
+    public List<String> getConnectionIds() {
+        return connectionIds;
+    }
+
+    public List<PlannedNode> getTargets() {
+        return targets;
+    }
+
+    public List<PlannedNode> getBoundaryEvents() {
+        return boundaryEvents;
+    }
+    
+    @Override
+    public String toString() {
+        return "PlannedNode[id=" + uniqueId + ", name=" + node.getName() + ", kind=" + kind + "]";
+    }
+}
@@ -0,0 +1,42 @@
+package org.jbpm.simulation.impl.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drools.core.time.SessionPseudoClock;
+import org.jbpm.simulation.SimulationContext;
+import org.jbpm.simulation.impl.SimulateProcessPathCommand;
+import org.jbpm.simulation.impl.SimulationPath;
+import org.kie.api.runtime.KieSession;
+
+/**
+ * Drools based simulation that executes <code>SimulateProcessPathCommand</code> on sessions 
+ * taken from <code>KieSessionPool</code>.
+ */
+public class PooledSessionSimulationEngine extends AbstractSimulationEngine {
+
+    private String processId;
+    private KieSessionPool pool;
+    
+    public PooledSessionSimulationEngine(String processId, SimulationContext context, KieSessionPool pool) {
+        super(context);
+        this.processId = processId;
+        this.pool = pool;
+    }
+
+    @Override
+    protected void execute(SimulationPath path, long instanceStartTime) {
+        KieSession session = pool.borrow();
+        try {
+            SessionPseudoClock clock = (SessionPseudoClock) session.getSessionClock();
+            clock.advanceTime(instanceStartTime - clock.getCurrentTime(), TimeUnit.MILLISECONDS);
+            
+            session.execute(new SimulateProcessPathCommand(processId, context, path));
+        } finally {
+            pool.release(session);
+        }
+    }
+
+    public KieSessionPool getPool() {
+        return pool;
+    }
+}
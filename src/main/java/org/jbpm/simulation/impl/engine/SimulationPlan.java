@@ -0,0 +1,95 @@
+package org.jbpm.simulation.impl.engine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jbpm.ruleflow.core.RuleFlowProcess;
+import org.jbpm.simulation.SimulationRegistry;
+import org.jbpm.simulation.impl.SimulationPath;
+import org.kie.api.definition.process.Connection;
+import org.kie.api.definition.process.Node;
+import org.kie.api.definition.process.Process;
+
+public class SimulationPlan {
+
+    private SimulationPath path;
+    private String processId;
+    private String processName;
+    private String processVersion;
+    
+    private Map<Node, PlannedNode> plannedNodes = new HashMap<Node, PlannedNode>();
+    private PlannedNode start;
+    
+    public SimulationPlan(Process process, SimulationPath path, SimulationRegistry registry) {
+        this.path = path;
+        this.processId = process.getId();
+        this.processName = process.getName();
+        this.processVersion = process.getVersion();
+        
+        Node startNode = ((RuleFlowProcess) process).getStart();
+        if (startNode == null) {
+            throw new IllegalArgumentException("No start node found in process " + processId);
+        }
+        this.start = plan(startNode, registry);
+    }
+    
+    protected PlannedNode plan(Node node, SimulationRegistry registry) {
+        PlannedNode planned = plannedNodes.get(node);
+        if (planned != null) {
+            return planned;
+        }
+        planned = new PlannedNode(this, node, registry.getSimulator(node));
+        // register before following connections to support loops
+        plannedNodes.put(node, planned);
+        
+        List<Connection> outgoing = node.getOutgoingConnections().get(org.jbpm.workflow.core.Node.CONNECTION_DEFAULT_TYPE);
+        if (outgoing != null) {
+            for (Connection conn : outgoing) {
+                String connectionId = (String) conn.getMetaData().get("UniqueId");
+                if (path.getSequenceFlowsIds().contains(connectionId)) {
+                    planned.addTarget(connectionId, plan(conn.getTo(), registry));
+                }
+            }
+        }
+        
+        if (planned.getKind() == PlannedNode.Kind.NODE) {
+            // boundary events that are part of the path and attached to this node
+            for (String boundaryEvent : path.getBoundaryEventIds()) {
+                for (Node candidate : node.getNodeContainer().getNodes()) {
+                    if (boundaryEvent.equals(candidate.getMetaData().get("UniqueId")) && 
+                            planned.getUniqueId().equals(candidate.getMetaData().get("AttachedTo"))) {
+                        planned.addBoundaryEvent(plan(candidate, registry));
+                        break;
+                    }
+                }
+            }
+        }
+        
+        return planned;
+    }
+
+    public SimulationPath getPath() {
+        return path;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public String getProcessName() {
+        return processName;
+    }
+
+    public String getProcessVersion() {
+        return processVersion;
+    }
+
+    public PlannedNode getStart() {
+        return start;
+    }
+    
+    public int getNumberOfPlannedNodes() {
+        return plannedNodes.size();
+    }
+}
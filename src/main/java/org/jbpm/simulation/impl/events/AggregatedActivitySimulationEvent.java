@@ -1,6 +1,7 @@
 package org.jbpm.simulation.impl.events;
 
 import org.jbpm.simulation.AggregatedSimulationEvent;
+import org.jbpm.simulation.impl.stats.LatencyHistogram;
 
 
 public class AggregatedActivitySimulationEvent implements AggregatedSimulationEvent {
@@ -16,6 +17,9 @@ public class AggregatedActivitySimulationEvent implements AggregatedSimulationEv
     
     protected long numberOfInstances; 
     
+    // optional, when present percentiles are available as properties e.g. p95ExecutionTime
+    protected LatencyHistogram executionTimeHistogram;
+    
     
     public AggregatedActivitySimulationEvent(String activityName, String activityId,
             double minExecutionTime, double avgExecutionTime,
@@ -75,6 +79,12 @@ public class AggregatedActivitySimulationEvent implements AggregatedSimulationEv
         } else if ("maxExecutionTime".equalsIgnoreCase(name)) {
          
             return maxExecutionTime;
+        } else if (executionTimeHistogram != null) {
+            double percentile = LatencyHistogram.parsePercentile(name, "ExecutionTime");
+            if (percentile >= 0) {
+                
+                return (double) executionTimeHistogram.getValueAtPercentile(percentile);
+            }
         }
         
         return null;
@@ -90,6 +100,12 @@ public class AggregatedActivitySimulationEvent implements AggregatedSimulationEv
     public void setNumberOfInstances(long numberOfInstances) {
         this.numberOfInstances = numberOfInstances;
     }
+    public LatencyHistogram getExecutionTimeHistogram() {
+        return executionTimeHistogram;
+    }
+    public void setExecutionTimeHistogram(LatencyHistogram executionTimeHistogram) {
+        this.executionTimeHistogram = executionTimeHistogram;
+    }
     
     
 }
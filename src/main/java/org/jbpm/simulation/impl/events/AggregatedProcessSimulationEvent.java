@@ -7,6 +7,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.jbpm.simulation.AggregatedSimulationEvent;
+import org.jbpm.simulation.impl.stats.LatencyHistogram;
 
 public class AggregatedProcessSimulationEvent implements AggregatedSimulationEvent {
 
@@ -22,6 +23,9 @@ public class AggregatedProcessSimulationEvent implements AggregatedSimulationEve
     
     protected Map<String, Integer> pathInstances = new HashMap<String, Integer>();
     
+    // optional, when present percentiles are available as properties e.g. p95ExecutionTime
+    protected LatencyHistogram executionTimeHistogram;
+    
     public AggregatedProcessSimulationEvent(Object processInfo,
             double minExecutionTime, double avgExecutionTime, double maxExecutionTime) {
         super();
@@ -81,10 +85,24 @@ public class AggregatedProcessSimulationEvent implements AggregatedSimulationEve
         } else if ("maxExecutionTime".equalsIgnoreCase(name)) {
             
             return maxExecutionTime;
+        } else if (executionTimeHistogram != null) {
+            double percentile = LatencyHistogram.parsePercentile(name, "ExecutionTime");
+            if (percentile >= 0) {
+                
+                return (double) executionTimeHistogram.getValueAtPercentile(percentile);
+            }
         }
         return null;
     }
 
+    public LatencyHistogram getExecutionTimeHistogram() {
+        return executionTimeHistogram;
+    }
+
+    public void setExecutionTimeHistogram(LatencyHistogram executionTimeHistogram) {
+        this.executionTimeHistogram = executionTimeHistogram;
+    }
+
     public String getType() {
         return this.type;
     }
@@ -125,6 +143,13 @@ public class AggregatedProcessSimulationEvent implements AggregatedSimulationEve
         }
     }
     
+    public void addPathInstances(Map<String, Integer> pathCounts) {
+        for (Entry<String, Integer> entry : pathCounts.entrySet()) {
+            Integer current = pathInstances.get(entry.getKey());
+            pathInstances.put(entry.getKey(), current == null ? entry.getValue() : current + entry.getValue());
+        }
+    }
+    
     public void calculateAggregatedPaths(List<String> pathIds) {
         for (String pathInfo : pathIds) {
             String[] entires = pathInfo.split(";");
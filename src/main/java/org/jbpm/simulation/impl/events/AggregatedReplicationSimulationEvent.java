@@ -0,0 +1,113 @@
+package org.jbpm.simulation.impl.events;
+
+import org.jbpm.simulation.AggregatedSimulationEvent;
+
+public class AggregatedReplicationSimulationEvent implements AggregatedSimulationEvent {
+
+    protected String type;
+    
+    protected String id;
+    protected String name;
+    
+    protected long numberOfReplications;
+    protected long numberOfInstances;
+    protected double meanExecutionTime;
+    protected double stdDevExecutionTime;
+    protected double confidenceLevel;
+    protected double lowerConfidenceBound;
+    protected double upperConfidenceBound;
+    
+    public AggregatedReplicationSimulationEvent(String id, String name, long numberOfReplications, long numberOfInstances,
+            double meanExecutionTime, double stdDevExecutionTime, double confidenceLevel, 
+            double lowerConfidenceBound, double upperConfidenceBound, String type) {
+        this.id = id;
+        this.name = name;
+        this.numberOfReplications = numberOfReplications;
+        this.numberOfInstances = numberOfInstances;
+        this.meanExecutionTime = meanExecutionTime;
+        this.stdDevExecutionTime = stdDevExecutionTime;
+        this.confidenceLevel = confidenceLevel;
+        this.lowerConfidenceBound = lowerConfidenceBound;
+        this.upperConfidenceBound = upperConfidenceBound;
+        this.type = type;
+    }
+
+    public Object getProperty(String name) {
+        if ("id".equalsIgnoreCase(name)) {
+            
+            return id;
+        } else if ("name".equalsIgnoreCase(name)) {
+            
+            return this.name;
+        } else if ("numberOfReplications".equalsIgnoreCase(name)) {
+            
+            return numberOfReplications;
+        } else if ("numberOfInstances".equalsIgnoreCase(name)) {
+            
+            return numberOfInstances;
+        } else if ("meanExecutionTime".equalsIgnoreCase(name)) {
+            
+            return meanExecutionTime;
+        } else if ("stdDevExecutionTime".equalsIgnoreCase(name)) {
+            
+            return stdDevExecutionTime;
+        } else if ("confidenceLevel".equalsIgnoreCase(name)) {
+            
+            return confidenceLevel;
+        } else if ("lowerConfidenceBound".equalsIgnoreCase(name)) {
+            
+            return lowerConfidenceBound;
+        } else if ("upperConfidenceBound".equalsIgnoreCase(name)) {
+            
+            return upperConfidenceBound;
+        }
+        return null;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNumberOfReplications() {
+        return numberOfReplications;
+    }
+
+    public long getNumberOfInstances() {
+        return numberOfInstances;
+    }
+
+    public double getMeanExecutionTime() {
+        return meanExecutionTime;
+    }
+
+    public double getStdDevExecutionTime() {
+        return stdDevExecutionTime;
+    }
+
+    public double getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public double getLowerConfidenceBound() {
+        return lowerConfidenceBound;
+    }
+
+    public double getUpperConfidenceBound() {
+        return upperConfidenceBound;
+    }
+    
+    @Override
+    public String toString() {
+        return "AggregatedReplicationSimulationEvent[" + type + "=" + id + ", replications=" + numberOfReplications 
+                + ", mean=" + meanExecutionTime + ", stdDev=" + stdDevExecutionTime 
+                + ", ci=[" + lowerConfidenceBound + ", " + upperConfidenceBound + "]]";
+    }
+}
@@ -1,5 +1,6 @@
 package org.jbpm.simulation.impl.events;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -88,6 +89,14 @@ public class GenericSimulationEvent implements SimulationEvent {
     public void addCustomMetric(String name, Object value) {
         this.customMetrics.put(name, value);
     }
+    
+    public boolean hasCustomMetrics() {
+        return !this.customMetrics.isEmpty();
+    }
+    
+    public Map<String, Object> getCustomMetrics() {
+        return Collections.unmodifiableMap(this.customMetrics);
+    }
 
     @Override
     public String toString() {
@@ -1,5 +1,7 @@
 package org.jbpm.simulation.impl.events;
 
+import org.jbpm.simulation.impl.stats.LatencyHistogram;
+
 public class HTAggregatedSimulationEvent extends AggregatedActivitySimulationEvent {
 
     public HTAggregatedSimulationEvent(String activityName, String activityId,
@@ -36,6 +38,8 @@ public class HTAggregatedSimulationEvent extends AggregatedActivitySimulationEve
     private double minResourceCost;
     private double avgResourceCost;
     private double maxResourceCost;
+    
+    private LatencyHistogram waitTimeHistogram;
 
     public double getMinWaitTime() {
         return minWaitTime;
@@ -112,6 +116,12 @@ public class HTAggregatedSimulationEvent extends AggregatedActivitySimulationEve
         } else if ("maxResourceUtilization".equalsIgnoreCase(name)) {
             
             return maxResourceUtilization;
+        } else if (waitTimeHistogram != null) {
+            double percentile = LatencyHistogram.parsePercentile(name, "WaitTime");
+            if (percentile >= 0) {
+                
+                return (double) waitTimeHistogram.getValueAtPercentile(percentile);
+            }
         }
         return null;
     }
@@ -140,5 +150,11 @@ public class HTAggregatedSimulationEvent extends AggregatedActivitySimulationEve
         this.maxResourceCost = maxResourceCost;
     }
 
-    
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTimeHistogram;
+    }
+
+    public void setWaitTimeHistogram(LatencyHistogram waitTimeHistogram) {
+        this.waitTimeHistogram = waitTimeHistogram;
+    }
 }
@@ -8,19 +8,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.math.random.RandomData;
-import org.apache.commons.math.random.RandomDataImpl;
+import org.jbpm.simulation.NodeSimulationParameters;
 import org.jbpm.simulation.SimulationContext;
-import org.jbpm.simulation.SimulationDataProvider;
 import org.jbpm.simulation.TimeGenerator;
 import org.jbpm.simulation.TimeGeneratorFactory;
-import org.jbpm.simulation.util.SimulationConstants;
-import org.jbpm.simulation.util.SimulationUtils;
 import org.kie.api.definition.process.Node;
 
 public class StaffPoolImpl implements StaffPool {
     
-    private Map<String, Object> properties;
+    private NodeSimulationParameters parameters;
 
 	private int poolSize;
 	private long duration;
@@ -32,8 +28,6 @@ public class StaffPoolImpl implements StaffPool {
 	
 	private long performedWork = 0;
 	
-	private RandomData randomizer = new RandomDataImpl();
-	
 	private double resourceCost;
 	
 	private TimeUnit elementTimeUnit;
@@ -45,17 +39,18 @@ public class StaffPoolImpl implements StaffPool {
 
 	public StaffPoolImpl(String processId, Node element, double simulationDuration) {
 	    
-	    SimulationDataProvider provider = SimulationContext.getContext().getDataProvider();
-	    
-	    properties = provider.getSimulationDataForNode(element);
+	    SimulationContext context = SimulationContext.getContext();
+	    parameters = context.getSimulationParameters(element);
 	    
-	    timeGenerator=TimeGeneratorFactory.newTimeGenerator(properties);
+	    // own stream so that sampling of the pool does not shift sequence of the node's time generator
+	    timeGenerator=TimeGeneratorFactory.newTimeGenerator(parameters, 
+	            context.getRandomStreams().newStream("staffpool:" + SimulationContext.getNodeKey(element)));
 		
-		this.elementTimeUnit = SimulationUtils.getTimeUnit(properties);
-		this.poolSize = (int)SimulationUtils.asDouble(properties.get(SimulationConstants.STAFF_AVAILABILITY));
+		this.elementTimeUnit = parameters.getTimeUnit();
+		this.poolSize = parameters.getQuantity();
 		
 		this.duration = timeGenerator.generateTime();
-		String workingHoursRange = (String) properties.get("working.hours.range");
+		String workingHoursRange = parameters.getWorkingHoursRange();
 		if (workingHoursRange != null) {
 		    
 		    String[] ranges = workingHoursRange.split(",");
@@ -66,7 +61,7 @@ public class StaffPoolImpl implements StaffPool {
 		    }
 		    
 		} else {
-    		long workingHoursOpt = (long)SimulationUtils.asDouble(properties.get(SimulationConstants.WORKING_HOURS));
+    		long workingHoursOpt = parameters.getWorkingHours();
     		if (workingHoursOpt > 0) {
     			this.workingHours = timeUnit.convert(workingHoursOpt, TimeUnit.HOURS);
     		}
@@ -80,7 +75,7 @@ public class StaffPoolImpl implements StaffPool {
 			this.poolCapacity = (long) (this.poolCapacity * simulationDuration);
 		}
 		
-		this.resourceCost = SimulationUtils.asDouble(properties.get(SimulationConstants.COST_PER_TIME_UNIT));
+		this.resourceCost = parameters.getUnitCost();
 		
 		
 	}
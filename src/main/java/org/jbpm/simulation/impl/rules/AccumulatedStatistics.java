@@ -0,0 +1,41 @@
+package org.jbpm.simulation.impl.rules;
+
+/**
+ * Result of <code>statistics</code> accumulate function, snapshot of all values matched at the time
+ * the rule fired.
+ */
+public class AccumulatedStatistics {
+
+    private final long count;
+    private final double min;
+    private final double mean;
+    private final double max;
+
+    public AccumulatedStatistics(long count, double min, double mean, double max) {
+        this.count = count;
+        this.min = min;
+        this.mean = mean;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "avg: " + mean + "; min: " + min + "; max:" + max + " count " + count;
+    }
+}
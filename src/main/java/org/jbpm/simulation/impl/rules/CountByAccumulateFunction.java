@@ -0,0 +1,72 @@
+package org.jbpm.simulation.impl.rules;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * Counts occurrences of every distinct value, registered as <code>countBy</code>. Used for number of
+ * instances per path so they do not need to be collected into a list and counted on every rule firing.
+ */
+public class CountByAccumulateFunction implements AccumulateFunction {
+
+    public static final String NAME = "countBy";
+
+    public static class CountByData implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+    }
+
+    public Serializable createContext() {
+        return new CountByData();
+    }
+
+    public void init(Serializable context) throws Exception {
+        ((CountByData) context).counts.clear();
+    }
+
+    public void accumulate(Serializable context, Object value) {
+        Map<String, Integer> counts = ((CountByData) context).counts;
+        String key = String.valueOf(value);
+        Integer current = counts.get(key);
+        counts.put(key, current == null ? 1 : current + 1);
+    }
+
+    public void reverse(Serializable context, Object value) throws Exception {
+        Map<String, Integer> counts = ((CountByData) context).counts;
+        String key = String.valueOf(value);
+        Integer current = counts.get(key);
+        if (current == null || current == 1) {
+            counts.remove(key);
+        } else {
+            counts.put(key, current - 1);
+        }
+    }
+
+    public Object getResult(Serializable context) throws Exception {
+        return new HashMap<String, Integer>(((CountByData) context).counts);
+    }
+
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    public Class<?> getResultType() {
+        return Map.class;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        // stateless
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        // stateless
+    }
+}
@@ -0,0 +1,67 @@
+package org.jbpm.simulation.impl.rules;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+import org.jbpm.simulation.impl.stats.LatencyHistogram;
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * Collects durations of all matched facts into a <code>LatencyHistogram</code>, registered as
+ * <code>histogram</code>. Used by <code>default.simulation.rules.drl</code> to provide percentiles of the final
+ * aggregated events. Every result is a copy of the histogram, so it should not be used by rules that create
+ * aggregated event per simulated event (as <code>onevent.simulation.rules.drl</code> does) as each of them
+ * would keep its own copy.
+ */
+public class HistogramAccumulateFunction implements AccumulateFunction {
+
+    public static final String NAME = "histogram";
+
+    public static class HistogramData implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        LatencyHistogram histogram = new LatencyHistogram();
+    }
+
+    public Serializable createContext() {
+        return new HistogramData();
+    }
+
+    public void init(Serializable context) throws Exception {
+        ((HistogramData) context).histogram = new LatencyHistogram();
+    }
+
+    public void accumulate(Serializable context, Object value) {
+        ((HistogramData) context).histogram.recordValue(((Number) value).longValue());
+    }
+
+    public void reverse(Serializable context, Object value) throws Exception {
+        ((HistogramData) context).histogram.removeValue(((Number) value).longValue());
+    }
+
+    public Object getResult(Serializable context) throws Exception {
+        // aggregated events get their own copy so they are not affected by facts matched later
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.merge(((HistogramData) context).histogram);
+        return copy;
+    }
+
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    public Class<?> getResultType() {
+        return LatencyHistogram.class;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        // stateless
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        // stateless
+    }
+}
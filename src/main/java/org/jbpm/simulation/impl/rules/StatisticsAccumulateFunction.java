@@ -0,0 +1,89 @@
+package org.jbpm.simulation.impl.rules;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.TreeMap;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * Incremental count, min, average and max of numeric values over all matched facts, registered
+ * as <code>statistics</code>. Unlike the built in min and max it supports reverse so modified or
+ * retracted events do not cause the whole accumulate to be recalculated. Count and average are
+ * updated in constant time, min and max in logarithmic time of distinct values.
+ */
+public class StatisticsAccumulateFunction implements AccumulateFunction {
+
+    public static final String NAME = "statistics";
+
+    public static class StatisticsData implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        long count;
+        double sum;
+        TreeMap<Double, Integer> values = new TreeMap<Double, Integer>();
+    }
+
+    public Serializable createContext() {
+        return new StatisticsData();
+    }
+
+    public void init(Serializable context) throws Exception {
+        StatisticsData data = (StatisticsData) context;
+        data.count = 0;
+        data.sum = 0;
+        data.values.clear();
+    }
+
+    public void accumulate(Serializable context, Object value) {
+        StatisticsData data = (StatisticsData) context;
+        double number = ((Number) value).doubleValue();
+        data.count++;
+        data.sum += number;
+
+        Integer current = data.values.get(number);
+        data.values.put(number, current == null ? 1 : current + 1);
+    }
+
+    public void reverse(Serializable context, Object value) throws Exception {
+        StatisticsData data = (StatisticsData) context;
+        double number = ((Number) value).doubleValue();
+        data.count--;
+        data.sum -= number;
+
+        Integer current = data.values.get(number);
+        if (current == null || current == 1) {
+            data.values.remove(number);
+        } else {
+            data.values.put(number, current - 1);
+        }
+    }
+
+    public Object getResult(Serializable context) throws Exception {
+        StatisticsData data = (StatisticsData) context;
+        if (data.count == 0) {
+            return new AccumulatedStatistics(0, 0, 0, 0);
+        }
+        return new AccumulatedStatistics(data.count, data.values.firstKey(),
+                data.sum / data.count, data.values.lastKey());
+    }
+
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    public Class<?> getResultType() {
+        return AccumulatedStatistics.class;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        // stateless
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        // stateless
+    }
+}
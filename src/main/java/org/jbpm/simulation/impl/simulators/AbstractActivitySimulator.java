@@ -0,0 +1,57 @@
+package org.jbpm.simulation.impl.simulators;
+
+import org.jbpm.simulation.ActivitySimulator;
+import org.jbpm.simulation.SimulationContext;
+import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.impl.SimulationEventDispatcher.EventFactory;
+import org.jbpm.simulation.impl.engine.PlannedNode;
+import org.kie.api.definition.process.Node;
+import org.kie.api.runtime.process.NodeInstance;
+
+public abstract class AbstractActivitySimulator implements ActivitySimulator {
+
+    protected Node getNode(Object activity) {
+        if (activity instanceof PlannedNode) {
+            return ((PlannedNode) activity).getNode();
+        }
+        return ((NodeInstance) activity).getNode();
+    }
+    
+    protected String getProcessId(Object activity) {
+        if (activity instanceof PlannedNode) {
+            return ((PlannedNode) activity).getPlan().getProcessId();
+        }
+        return ((NodeInstance) activity).getProcessInstance().getProcessId();
+    }
+    
+    protected String getProcessName(Object activity) {
+        if (activity instanceof PlannedNode) {
+            return ((PlannedNode) activity).getPlan().getProcessName();
+        }
+        return ((NodeInstance) activity).getProcessInstance().getProcessName();
+    }
+    
+    protected String getProcessVersion(Object activity) {
+        if (activity instanceof PlannedNode) {
+            return ((PlannedNode) activity).getPlan().getProcessVersion();
+        }
+        return ((NodeInstance) activity).getProcessInstance().getProcess().getVersion();
+    }
+    
+    protected String getNodeType(Node node, SimulationContext context) {
+        return (String) context.getDataProvider().getProcessDataForNode(node).get("node.type");
+    }
+    
+    /**
+     * Notifies listeners about simulated node, the event object is created by the factory only when
+     * the repository or some listener needs it.
+     * @return event to be stored in the repository or <code>null</code>
+     */
+    protected SimulationEvent fireNodeEvent(SimulationContext context, Node node, Class<? extends SimulationEvent> eventType, 
+            String processId, long startTime, long endTime, long duration, long waitTime, double resourceCost, 
+            double resourceUtilization, EventFactory factory) {
+        return context.getEventDispatcher().fireNodeEvent(factory, eventType, processId, context.getProcessInstanceId(), 
+                (String) node.getMetaData().get("UniqueId"), node.getName(), startTime, endTime, duration, waitTime, 
+                resourceCost, resourceUtilization);
+    }
+}
@@ -1,31 +1,36 @@
 package org.jbpm.simulation.impl.simulators;
 
-import org.jbpm.simulation.ActivitySimulator;
 import org.jbpm.simulation.SimulationContext;
 import org.jbpm.simulation.SimulationEvent;
+import org.jbpm.simulation.impl.SimulationEventDispatcher.EventFactory;
 import org.jbpm.simulation.impl.events.EndSimulationEvent;
 import org.kie.api.definition.process.Node;
-import org.kie.api.runtime.process.NodeInstance;
-import org.kie.api.runtime.process.ProcessInstance;
 
-public class EndEventSimulator implements ActivitySimulator {
+public class EndEventSimulator extends AbstractActivitySimulator {
 
-    public SimulationEvent simulate(Object activity, SimulationContext context) {
-        NodeInstance nodeInstance = (NodeInstance) activity;
-        long startTime = context.getClock().getCurrentTime();
-        ProcessInstance pi = nodeInstance.getProcessInstance();
+    public SimulationEvent simulate(final Object activity, final SimulationContext context) {
+        final long startTime = context.getClock().getCurrentTime();
         
-        Node node = nodeInstance.getNode();
-        String bpmn2NodeId = (String) node.getMetaData().get("UniqueId");
+        final Node node = getNode(activity);
         
-        String processName = pi.getProcessName();
-        String processVer = pi.getProcess().getVersion();
-        if (processVer == null) {
-            processVer = "";
-        }
         // set end time for processinstance end time
         context.setMaxEndTime(context.getClock().getCurrentTime());
-        return new EndSimulationEvent(pi.getProcessId(), context.getProcessInstanceId(), startTime, context.getClock().getCurrentTime(), context.getStartTime(), bpmn2NodeId, node.getName(), processName, processVer);
+        
+        final String processId = getProcessId(activity);
+        final long endTime = context.getClock().getCurrentTime();
+        return fireNodeEvent(context, node, EndSimulationEvent.class, processId, startTime, endTime, 
+                endTime - context.getStartTime(), 0, 0, 0, new EventFactory() {
+            
+            public SimulationEvent newEvent() {
+                String processName = getProcessName(activity);
+                String processVer = getProcessVersion(activity);
+                if (processVer == null) {
+                    processVer = "";
+                }
+                return new EndSimulationEvent(processId, context.getProcessInstanceId(), startTime, endTime, context.getStartTime(), 
+                        (String) node.getMetaData().get("UniqueId"), node.getName(), processName, processVer);
+            }
+        });
     }
 
 }
@@ -1,42 +1,37 @@
 package org.jbpm.simulation.impl.simulators;
 
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
-import org.jbpm.simulation.ActivitySimulator;
 import org.jbpm.simulation.SimulationContext;
-import org.jbpm.simulation.SimulationDataProvider;
 import org.jbpm.simulation.SimulationEvent;
 import org.jbpm.simulation.TimeGenerator;
-import org.jbpm.simulation.TimeGeneratorFactory;
+import org.jbpm.simulation.impl.SimulationEventDispatcher.EventFactory;
 import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
 import org.kie.api.definition.process.Node;
-import org.kie.api.runtime.process.NodeInstance;
-import org.kie.api.runtime.process.ProcessInstance;
 
-public class EventSimulator implements ActivitySimulator  {
+public class EventSimulator extends AbstractActivitySimulator  {
 
-    public SimulationEvent simulate(Object activity, SimulationContext context) {
-        NodeInstance eventNodeInstance = (NodeInstance) activity;
-        long startTime = context.getClock().getCurrentTime();
-        Map<String, Object> metadata = eventNodeInstance.getNode().getMetaData();
+    public SimulationEvent simulate(Object activity, final SimulationContext context) {
+        final long startTime = context.getClock().getCurrentTime();
+        final Node node = getNode(activity);
         
-        ProcessInstance pi = eventNodeInstance.getProcessInstance();
-        Node node = eventNodeInstance.getNode();
-        String bpmn2NodeId = (String) metadata.get("UniqueId");
-        SimulationDataProvider provider = context.getDataProvider();
-        
-        TimeGenerator timeGenerator=TimeGeneratorFactory.newTimeGenerator(provider.getSimulationDataForNode(node));
-        long duration = timeGenerator.generateTime();
+        TimeGenerator timeGenerator = context.getTimeGenerator(node);
+        final long duration = timeGenerator.generateTime();
         
         context.getClock().advanceTime(duration, TimeUnit.MILLISECONDS);
         // set end time for processinstance end time
         context.setMaxEndTime(context.getClock().getCurrentTime());
 
-        String type = (String) provider.getProcessDataForNode(node).get("node.type");
-
-        return new ActivitySimulationEvent(pi.getProcessId(), context.getProcessInstanceId(), node.getName(), bpmn2NodeId, duration,
-                startTime, context.getClock().getCurrentTime(), type);
+        final String processId = getProcessId(activity);
+        final long endTime = context.getClock().getCurrentTime();
+        return fireNodeEvent(context, node, ActivitySimulationEvent.class, processId, startTime, endTime, duration, 0, 0, 0, 
+                new EventFactory() {
+            
+            public SimulationEvent newEvent() {
+                return new ActivitySimulationEvent(processId, context.getProcessInstanceId(), node.getName(), 
+                        (String) node.getMetaData().get("UniqueId"), duration, startTime, endTime, getNodeType(node, context));
+            }
+        });
     }
 
 }
@@ -0,0 +1,188 @@
+package org.jbpm.simulation.impl.stats;
+
+import java.io.Serializable;
+
+/**
+ * Log-linear histogram of non negative long values (durations in milliseconds) in the spirit of HDR
+ * histogram. Values below 128 are counted exactly, bigger values fall into one of 128 buckets per power
+ * of two which keeps relative error of reported percentiles below 1%. Histograms are merged by adding
+ * bucket counts so percentiles of sharded or parallel runs can be computed without raw samples.
+ * Not thread safe.
+ */
+public class LatencyHistogram implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private long[] counts = new long[SUB_BUCKET_COUNT * 2];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void recordValue(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = indexOf(value);
+        ensureCapacity(index + 1);
+        counts[index]++;
+        totalCount++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Removes value recorded before. When it was the smallest or largest value its extreme is then
+     * only known with the precision of its bucket.
+     */
+    public void removeValue(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = indexOf(value);
+        if (index >= counts.length || counts[index] == 0) {
+            throw new IllegalArgumentException("Value " + value + " was not recorded");
+        }
+        counts[index]--;
+        totalCount--;
+        if (totalCount == 0) {
+            min = Long.MAX_VALUE;
+            max = Long.MIN_VALUE;
+            return;
+        }
+        if (counts[index] == 0) {
+            if (value <= min) {
+                int i = index;
+                while (counts[i] == 0) {
+                    i++;
+                }
+                min = lowestValueAt(i);
+            }
+            if (value >= max) {
+                int i = index;
+                while (counts[i] == 0) {
+                    i--;
+                }
+                max = highestValueAt(i);
+            }
+        }
+    }
+
+    public void merge(LatencyHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        ensureCapacity(other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns value at given percentile (0-100), e.g. 99 for p99, or -1 when nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return -1;
+        }
+        long target = (long) Math.ceil((percentile / 100) * totalCount);
+        if (target < 1) {
+            target = 1;
+        } else if (target > totalCount) {
+            target = totalCount;
+        }
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                long lower = lowestValueAt(i);
+                long upper = highestValueAt(i);
+                long value = lower + (upper - lower) / 2;
+                // exact extremes are known so do not report anything outside of them
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? -1 : min;
+    }
+
+    public long getMax() {
+        return totalCount == 0 ? -1 : max;
+    }
+
+    protected static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift);
+
+        return (shift + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    protected static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return subBucket << shift;
+    }
+
+    protected static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > counts.length) {
+            long[] grown = new long[Math.max(size, counts.length * 2)];
+            System.arraycopy(counts, 0, grown, 0, counts.length);
+            counts = grown;
+        }
+    }
+
+    /**
+     * Resolves percentile from property names like <code>p99ExecutionTime</code> or <code>p99.9WaitTime</code>,
+     * returns -1 if the name does not follow that pattern for given suffix.
+     */
+    public static double parsePercentile(String name, String suffix) {
+        if (name == null || name.length() <= suffix.length() + 1
+                || Character.toLowerCase(name.charAt(0)) != 'p'
+                || !name.toLowerCase().endsWith(suffix.toLowerCase())) {
+            return -1;
+        }
+        try {
+            double percentile = Double.parseDouble(name.substring(1, name.length() - suffix.length()));
+            if (Double.isNaN(percentile) || percentile < 0 || percentile > 100) {
+                return -1;
+            }
+            return percentile;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
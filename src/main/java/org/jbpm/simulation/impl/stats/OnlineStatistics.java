@@ -0,0 +1,82 @@
+package org.jbpm.simulation.impl.stats;
+
+/**
+ * Constant memory running statistics (count, min, max, mean and variance) updated with Welford's
+ * algorithm. Two instances can be merged so partial results of sharded or parallel runs can be combined.
+ * Not thread safe.
+ */
+public class OnlineStatistics {
+
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double mean;
+    private double m2;
+    
+    public void addValue(double value) {
+        count++;
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+    
+    public void merge(OnlineStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            count = other.count;
+            min = other.min;
+            max = other.max;
+            mean = other.mean;
+            m2 = other.m2;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : Double.NaN;
+    }
+    
+    // sample variance, same as used by commons-math
+    public double getVariance() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+    
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+}
@@ -0,0 +1,59 @@
+package org.jbpm.simulation.impl.stats;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Uniform random sample of at most given number of items out of a stream of unknown length
+ * (reservoir sampling, algorithm R). Every offered item has the same probability to be in the sample.
+ * Not thread safe.
+ */
+public class ReservoirSample<T> {
+
+    private final int capacity;
+    private final Random random;
+    private final List<T> items;
+    private long seen;
+
+    public ReservoirSample(int capacity, Random random) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Sample capacity must be positive but was " + capacity);
+        }
+        this.capacity = capacity;
+        this.random = random;
+        this.items = new ArrayList<T>(Math.min(capacity, 64));
+    }
+
+    /**
+     * @return true if the item was taken into the sample
+     */
+    public boolean offer(T item) {
+        seen++;
+        if (items.size() < capacity) {
+            items.add(item);
+            return true;
+        }
+        // keep the item with probability capacity / seen
+        long index = (long) (random.nextDouble() * seen);
+        if (index < capacity) {
+            items.set((int) index, item);
+            return true;
+        }
+        return false;
+    }
+
+    public List<T> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // number of items offered so far
+    public long getSeen() {
+        return seen;
+    }
+}
@@ -0,0 +1,70 @@
+package org.jbpm.simulation.impl.time;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.math.random.RandomData;
+import org.apache.commons.math.random.RandomDataImpl;
+
+/**
+ * Source of independent random streams derived from single master seed. Every replication gets its own
+ * seed derived from master seed and replication number and every stream (e.g. per node) is derived
+ * from the replication seed and stream id, so the same master seed always produces the same results
+ * regardless of how replications are scheduled on threads.
+ */
+public class RandomStreams {
+
+    private static final long REPLICATION_GAMMA = 0xD1B54A32D192ED03L;
+    private static final AtomicLong SEED_SEQUENCE = new AtomicLong(System.nanoTime());
+
+    private final long masterSeed;
+    private final int replication;
+    private final long seed;
+
+    public RandomStreams(long masterSeed) {
+        this(masterSeed, 0);
+    }
+
+    public RandomStreams(long masterSeed, int replication) {
+        this.masterSeed = masterSeed;
+        this.replication = replication;
+        this.seed = SplitMixRandomGenerator.mix64(masterSeed + REPLICATION_GAMMA * (replication + 1));
+    }
+
+    public static long randomSeed() {
+        // sequence keeps seeds requested within the same clock tick distinct
+        return SplitMixRandomGenerator.mix64(SEED_SEQUENCE.addAndGet(REPLICATION_GAMMA) ^ System.nanoTime());
+    }
+
+    /**
+     * Unseeded stream independent of all other streams, including ones created at the same time.
+     */
+    public static RandomData newRandomStream() {
+        return new RandomDataImpl(new SplitMixRandomGenerator(randomSeed()));
+    }
+
+    public RandomStreams forReplication(int replication) {
+        return new RandomStreams(masterSeed, replication);
+    }
+
+    public RandomData newStream(String streamId) {
+        return new RandomDataImpl(new SplitMixRandomGenerator(seedFor(streamId)));
+    }
+
+    protected long seedFor(String streamId) {
+        // FNV-1a over the stream id, String.hashCode would be too collision prone for 64 bit seeds
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < streamId.length(); i++) {
+            hash ^= streamId.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return SplitMixRandomGenerator.mix64(seed ^ hash);
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+
+    public int getReplication() {
+        return replication;
+    }
+}
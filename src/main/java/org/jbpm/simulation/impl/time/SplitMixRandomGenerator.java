@@ -0,0 +1,58 @@
+package org.jbpm.simulation.impl.time;
+
+import org.apache.commons.math.random.BitsStreamGenerator;
+
+/**
+ * Small and fast SplitMix64 generator - every instance owns its state so it is not synchronized and
+ * must not be shared between threads. Quality is more than sufficient for simulation sampling.
+ */
+public class SplitMixRandomGenerator extends BitsStreamGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMixRandomGenerator(long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        setSeed((long) seed);
+    }
+
+    @Override
+    public void setSeed(int[] seed) {
+        long combined = 0;
+        for (int i = 0; i < seed.length; i++) {
+            combined = mix64(combined + GOLDEN_GAMMA + (seed[i] & 0xFFFFFFFFL));
+        }
+        setSeed(combined);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong64() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        return nextLong64();
+    }
+
+    protected long nextLong64() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -25,4 +25,12 @@ public class SimulationConstants {
     public static final String MIN_RESOURCE_UTILIZATIN = "minResourceUtilization";
     public static final String AVG_RESOURCE_UTILIZATIN = "avgResourceUtilization";
     public static final String MAX_RESOURCE_UTILIZATIN = "maxResourceUtilization";
+    public static final String P50_EXECUTION_TIME = "p50ExecutionTime";
+    public static final String P90_EXECUTION_TIME = "p90ExecutionTime";
+    public static final String P95_EXECUTION_TIME = "p95ExecutionTime";
+    public static final String P99_EXECUTION_TIME = "p99ExecutionTime";
+    public static final String P50_WAIT_TIME = "p50WaitTime";
+    public static final String P90_WAIT_TIME = "p90WaitTime";
+    public static final String P95_WAIT_TIME = "p95WaitTime";
+    public static final String P99_WAIT_TIME = "p99WaitTime";
 }
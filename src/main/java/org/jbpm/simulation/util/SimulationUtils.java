@@ -1,5 +1,8 @@
 package org.jbpm.simulation.util;
 
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.HashMap;
@@ -88,4 +91,28 @@ public class SimulationUtils {
 			return defaultValue;
 		}
 	}
+	
+	public static String contentHash(String... content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String item : content) {
+				if (item != null) {
+					digest.update(item.getBytes("UTF-8"));
+				}
+				// separator so that ("ab", "c") and ("a", "bc") do not collide
+				digest.update((byte) 0);
+			}
+			byte[] hash = digest.digest();
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+				hex.append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is not available", e);
+		}
+	}
 }
@@ -0,0 +1,72 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.AsyncSimulationRepository;
+import org.jbpm.simulation.impl.InMemorySimulationRepository;
+import org.jbpm.simulation.impl.StreamingAggregationRepository;
+import org.jbpm.simulation.impl.WorkingMemorySimulationRepository;
+import org.jbpm.simulation.impl.events.GenericSimulationEvent;
+import org.junit.Test;
+
+public class AsyncSimulationRepositoryTest {
+
+    @Test
+    public void testAsyncSimulationRepository() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        WorkingMemorySimulationRepository wmRepo = new WorkingMemorySimulationRepository("default.simulation.rules.drl");
+        StreamingAggregationRepository streaming = new StreamingAggregationRepository();
+        AsyncSimulationRepository async = new AsyncSimulationRepository(16, 4, AsyncSimulationRepository.Backpressure.BLOCK, wmRepo, streaming);
+        
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, async);
+        async.close();
+        
+        assertEquals(50, async.getPublishedEvents());
+        assertEquals(50, async.getDeliveredEvents());
+        assertEquals(0, async.getDroppedEvents());
+        assertEquals(50, wmRepo.getEvents().size());
+        assertNotNull(wmRepo.getSimulationInfo());
+        wmRepo.fireAllRules();
+        assertEquals(4, wmRepo.getAggregatedEvents().size());
+        assertEquals(4, streaming.getAggregatedEvents().size());
+        wmRepo.close();
+    }
+    
+    @Test(timeout = 10000)
+    public void testFailingSinkReleasesProducers() {
+        AsyncSimulationRepository async = new AsyncSimulationRepository(1, 1, 
+                AsyncSimulationRepository.Backpressure.BLOCK, new FailingSimulationRepository());
+        try {
+            // more events than the buffer holds so the producer would wait for space forever
+            for (int i = 0; i < 100; i++) {
+                async.storeEvent(new GenericSimulationEvent("test", i, 0, 1, "test"));
+            }
+            fail("Failure of the sink must be reported to the producer");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            async.close();
+            fail("Failure of the sink must be reported on close");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // already closed
+        async.close();
+    }
+    
+    public static class FailingSimulationRepository extends InMemorySimulationRepository {
+        
+        @Override
+        public void storeEvent(SimulationEvent event) {
+            throw new IllegalStateException("Sink failure");
+        }
+    }
+}
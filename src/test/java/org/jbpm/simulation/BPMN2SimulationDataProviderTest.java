@@ -1,19 +1,24 @@
 package org.jbpm.simulation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.jbpm.simulation.converter.SimulationFilterPathFormatConverter;
 import org.jbpm.simulation.impl.BPMN2SimulationDataProvider;
 import org.jbpm.simulation.impl.SimulationPath;
 import org.jbpm.simulation.util.SimulationConstants;
+import org.jbpm.simulation.util.SimulationUtils;
 import org.jbpm.workflow.core.NodeContainer;
+import org.jbpm.workflow.core.node.HumanTaskNode;
 import org.junit.Test;
 import org.kie.api.definition.process.Connection;
 import org.kie.api.definition.process.Node;
@@ -146,4 +151,60 @@ public class BPMN2SimulationDataProviderTest {
         assertTrue(0.3 == probabilityOfPathTwo);
         System.out.println("Probability 1: " + probabilityOfPathOne + " probabilit 2: " + probabilityOfPathTwo);
     }
+    
+    @Test
+    public void testIndexedSimulationProperties() {
+        BPMN2SimulationDataProvider provider = new BPMN2SimulationDataProvider(this.getClass().getResourceAsStream("/BPMN2-UserTaskWithSimulationMetaData.bpmn2"));
+        
+        Map<String, Object> data = provider.getSimulationDataForNode("_2B5B707D-3458-475C-943D-74F20B13AF20");
+        assertEquals(8, data.size());
+        assertTrue(provider.getSimulationDataForNode("not-existing").isEmpty());
+        
+        // returned map is a copy, changes do not leak into the index
+        data.put("custom", "value");
+        assertEquals(8, provider.getSimulationDataForNode("_2B5B707D-3458-475C-943D-74F20B13AF20").size());
+        data.remove("custom");
+        
+        provider.rebuildIndex();
+        Map<String, Object> rebuilt = provider.getSimulationDataForNode("_2B5B707D-3458-475C-943D-74F20B13AF20");
+        assertEquals(data, rebuilt);
+    }
+    
+    @Test
+    public void testRebuildInvalidatesContextCaches() {
+        BPMN2SimulationDataProvider provider = new BPMN2SimulationDataProvider(this.getClass().getResourceAsStream("/BPMN2-UserTaskWithSimulationMetaData.bpmn2"));
+        SimulationContext context = SimulationContextFactory.newContext(provider);
+        HumanTaskNode node = new HumanTaskNode();
+        node.setMetaData("UniqueId", "_2B5B707D-3458-475C-943D-74F20B13AF20");
+        
+        NodeSimulationParameters parameters = context.getSimulationParameters(node);
+        TimeGenerator generator = context.getTimeGenerator(node);
+        assertTrue(parameters == context.getSimulationParameters(node));
+        assertTrue(generator == context.getTimeGenerator(node));
+        
+        long version = provider.getVersion();
+        provider.rebuildIndex();
+        assertEquals(version + 1, provider.getVersion());
+        assertFalse(parameters == context.getSimulationParameters(node));
+        assertFalse(generator == context.getTimeGenerator(node));
+    }
+    
+    @Test
+    public void testTypedSimulationParameters() {
+        BPMN2SimulationDataProvider provider = new BPMN2SimulationDataProvider(this.getClass().getResourceAsStream("/BPMN2-UserTaskWithSimulationMetaData.bpmn2"));
+        
+        Map<String, Object> data = provider.getSimulationDataForNode("_2B5B707D-3458-475C-943D-74F20B13AF20");
+        NodeSimulationParameters parameters = provider.getSimulationParametersForNode("_2B5B707D-3458-475C-943D-74F20B13AF20");
+        
+        assertEquals(NodeSimulationParameters.DistributionType.fromString((String) data.get(SimulationConstants.DISTRIBUTION_TYPE)), 
+                parameters.getDistributionType());
+        assertEquals(SimulationUtils.getTimeUnit(data), parameters.getTimeUnit());
+        assertEquals(TimeUnit.MILLISECONDS.convert((long) SimulationUtils.asDouble(data.get(SimulationConstants.MEAN)), parameters.getTimeUnit()), 
+                parameters.getMean());
+        assertEquals((int) SimulationUtils.asDouble(data.get(SimulationConstants.STAFF_AVAILABILITY)), parameters.getQuantity());
+        // not set values are not converted to the time unit
+        assertNull(data.get(SimulationConstants.MIN));
+        assertEquals(-1, parameters.getMin());
+        assertTrue(parameters == provider.getSimulationParametersForNode("_2B5B707D-3458-475C-943D-74F20B13AF20"));
+    }
 }
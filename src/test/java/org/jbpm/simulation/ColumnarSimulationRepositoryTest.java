@@ -0,0 +1,66 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.AsyncSimulationRepository;
+import org.jbpm.simulation.impl.ColumnarSimulationRepository;
+import org.jbpm.simulation.impl.InMemorySimulationRepository;
+import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
+import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+import org.junit.Test;
+
+public class ColumnarSimulationRepositoryTest {
+
+    @Test
+    public void testColumnarSimulationRepository() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        InMemorySimulationRepository inMemory = new InMemorySimulationRepository();
+        ColumnarSimulationRepository columnar = new ColumnarSimulationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, 
+                new AsyncSimulationRepository(inMemory, columnar)).close();
+        
+        assertEquals(inMemory.getEvents().size(), columnar.size());
+        List<SimulationEvent> view = columnar.getEvents();
+        for (int i = 0; i < columnar.size(); i++) {
+            SimulationEvent expected = inMemory.getEvents().get(i);
+            SimulationEvent materialized = view.get(i);
+            
+            assertEquals(expected.getClass(), materialized.getClass());
+            assertEquals(expected.getProcessId(), materialized.getProcessId());
+            assertEquals(expected.getProcessInstanceId(), materialized.getProcessInstanceId());
+            assertEquals(expected.getStartTime(), materialized.getStartTime());
+            assertEquals(expected.getEndTime(), materialized.getEndTime());
+            assertEquals(expected.getType(), materialized.getType());
+            if (expected instanceof HumanTaskActivitySimulationEvent) {
+                HumanTaskActivitySimulationEvent htEvent = (HumanTaskActivitySimulationEvent) expected;
+                assertEquals(htEvent.getActivityName(), columnar.getActivityName(i));
+                assertEquals(htEvent.getDuration(), columnar.getDuration(i));
+                assertEquals(htEvent.getWaitTime(), ((HumanTaskActivitySimulationEvent) materialized).getWaitTime());
+                assertEquals(htEvent.getResourceCost(), ((HumanTaskActivitySimulationEvent) materialized).getResourceCost(), 0);
+            } else if (expected instanceof ProcessInstanceEndSimulationEvent) {
+                assertEquals(((ProcessInstanceEndSimulationEvent) expected).getPathId(), 
+                        ((ProcessInstanceEndSimulationEvent) materialized).getPathId());
+            }
+        }
+    }
+    
+    @Test
+    public void testCustomMetricsKeptWithKnownType() {
+        ColumnarSimulationRepository columnar = new ColumnarSimulationRepository();
+        ActivitySimulationEvent event = new ActivitySimulationEvent("process", 1, "Task", "_1", 100, 0, 100, "scriptTask");
+        event.addCustomMetric("queue", 5);
+        columnar.storeEvent(event);
+        
+        SimulationEvent materialized = columnar.getEvent(0);
+        assertTrue(materialized instanceof ActivitySimulationEvent);
+        assertEquals(100, ((ActivitySimulationEvent) materialized).getDuration());
+        assertEquals("5", materialized.getMetric("queue"));
+    }
+}
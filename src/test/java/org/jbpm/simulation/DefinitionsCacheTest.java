@@ -0,0 +1,38 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jbpm.simulation.converter.SimulationFilterPathFormatConverter;
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.BPMN2SimulationDataProvider;
+import org.jbpm.simulation.impl.DefinitionsCache;
+import org.jbpm.simulation.impl.ParsedProcessModel;
+import org.jbpm.simulation.impl.SimulationPath;
+import org.junit.Test;
+
+public class DefinitionsCacheTest {
+
+    @Test
+    public void testDefinitionsCache() throws IOException {
+        String gateway = TestUtils.readResource("/BPMN-SimpleExclusiveGatewayProcess.bpmn2");
+        
+        DefinitionsCache cache = new DefinitionsCache(2);
+        ParsedProcessModel model = cache.get(gateway);
+        assertTrue(model == cache.get(gateway));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        
+        List<SimulationPath> paths = PathFinderFactory.getInstance(model).findPaths(
+                new SimulationFilterPathFormatConverter(new BPMN2SimulationDataProvider(model)));
+        assertEquals(2, paths.size());
+        
+        cache.invalidate(gateway);
+        assertEquals(0, cache.size());
+        assertFalse(model == cache.get(gateway));
+    }
+}
@@ -0,0 +1,55 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.EventLogReader;
+import org.jbpm.simulation.impl.EventLogSimulationRepository;
+import org.jbpm.simulation.impl.WorkingMemorySimulationRepository;
+import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EventLogSimulationRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEventLogReplay() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        File directory = folder.newFolder("eventlog");
+        
+        // small chunks so the log rolls over several times
+        EventLogSimulationRepository log = new EventLogSimulationRepository(directory, "simulation", 16);
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, log);
+        log.close();
+        assertEquals(50, log.getCount());
+        // last chunk is cut down to its header and the two records written into it
+        assertEquals(16 + 2 * 81, new File(directory, "simulation.00003.evl").length());
+        assertEquals(16 + 16 * 81, new File(directory, "simulation.00002.evl").length());
+        
+        WorkingMemorySimulationRepository wmRepo = new WorkingMemorySimulationRepository("default.simulation.rules.drl");
+        assertEquals(50, new EventLogReader(directory, "simulation").replay(wmRepo));
+        wmRepo.fireAllRules();
+        assertEquals(50, wmRepo.getEvents().size());
+        assertEquals(4, wmRepo.getAggregatedEvents().size());
+        wmRepo.close();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testCustomMetricsRejected() throws IOException {
+        EventLogSimulationRepository log = new EventLogSimulationRepository(folder.newFolder("eventlog"), "simulation", 16);
+        ActivitySimulationEvent event = new ActivitySimulationEvent("process", 1, "Task", "_1", 100, 0, 100, "scriptTask");
+        event.addCustomMetric("queue", 5);
+        try {
+            log.storeEvent(event);
+        } finally {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.KieModuleCache;
+import org.jbpm.simulation.impl.KieModuleCache.CachedKieModule;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieRepository;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.io.ResourceType;
+
+public class KieModuleCacheTest {
+
+    @Test
+    public void testKieModuleCache() throws IOException {
+        String twoUserTasks = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        String gateway = TestUtils.readResource("/BPMN-SimpleExclusiveGatewayProcess.bpmn2");
+        
+        KieModuleCache cache = new KieModuleCache(1);
+        
+        CachedKieModule module = cache.get("TestKbase", new String[]{twoUserTasks}, new ResourceType[]{ResourceType.BPMN2});
+        CachedKieModule cached = cache.get("TestKbase", new String[]{twoUserTasks}, new ResourceType[]{ResourceType.BPMN2});
+        assertTrue(module == cached);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertNotNull(cached.getKieBase().getProcess("BPMN2-TwoUserTasks"));
+        
+        CachedKieModule other = cache.get("TestKbase", new String[]{gateway}, new ResourceType[]{ResourceType.BPMN2});
+        assertFalse(module.getReleaseId().equals(other.getReleaseId()));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.size());
+        
+        cache.invalidate("TestKbase", new String[]{gateway}, new ResourceType[]{ResourceType.BPMN2});
+        assertEquals(0, cache.size());
+        cache.get("TestKbase", new String[]{gateway}, new ResourceType[]{ResourceType.BPMN2});
+        assertEquals(3, cache.getMisses());
+    }
+    
+    @Test
+    public void testEvictedModuleIsRemovedFromRepository() throws IOException {
+        String twoUserTasks = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        String gateway = TestUtils.readResource("/BPMN-SimpleExclusiveGatewayProcess.bpmn2");
+        KieRepository repository = KieServices.Factory.get().getRepository();
+        
+        KieModuleCache cache = new KieModuleCache(1);
+        
+        CachedKieModule module = cache.get("TestKbase", new String[]{twoUserTasks}, new ResourceType[]{ResourceType.BPMN2});
+        ReleaseId evictedReleaseId = module.getReleaseId();
+        assertNotNull(module.getKieBase());
+        assertNotNull(repository.getKieModule(evictedReleaseId));
+        
+        CachedKieModule other = cache.get("TestKbase", new String[]{gateway}, new ResourceType[]{ResourceType.BPMN2});
+        assertEquals(1, cache.getEvictions());
+        assertNull(repository.getKieModule(evictedReleaseId));
+        assertNull(module.getReleaseId());
+        
+        ReleaseId invalidatedReleaseId = other.getReleaseId();
+        assertNotNull(repository.getKieModule(invalidatedReleaseId));
+        cache.invalidateAll();
+        assertNull(repository.getKieModule(invalidatedReleaseId));
+    }
+}
@@ -1,16 +1,28 @@
 package org.jbpm.simulation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import org.eclipse.bpmn2.Bpmn2Factory;
+import org.eclipse.bpmn2.Definitions;
+import org.eclipse.bpmn2.FlowElement;
 import org.jbpm.simulation.converter.JSONPathFormatConverter;
 import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.DefinitionsCache;
+import org.jbpm.simulation.impl.ParsedProcessModel;
+import org.jbpm.simulation.util.BPMN2Utils;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Test;
@@ -1566,4 +1578,170 @@ public class PathFinderTest {
         TestUtils.printOutPaths(paths, jsonPaths, "testSinglePath");
        
     }
+    
+    @Test
+    public void testClonedPathContextIsIndependent() {
+        Bpmn2Factory factory = Bpmn2Factory.eINSTANCE;
+        FlowElement task = factory.createUserTask();
+        task.setId("_1");
+        FlowElement flow = factory.createSequenceFlow();
+        flow.setId("_1-_2");
+        
+        PathContextManager manager = new PathContextManager();
+        PathContext root = manager.getContextFromStack();
+        manager.addToPath(task, root);
+        
+        PathContext clone = manager.cloneGiven(root);
+        clone.addPathElement(flow);
+        
+        assertEquals(1, root.getPathElements().size());
+        assertFalse(root.containsPathElement(flow));
+        assertEquals(2, clone.getPathElements().size());
+        assertTrue(clone.getPathElements().contains(task));
+        assertTrue(clone.getPathElements().contains(flow));
+        
+        List<FlowElement> elements = new ArrayList<FlowElement>(clone.getPathElements());
+        assertTrue(elements.get(0) == task);
+        assertTrue(elements.get(1) == flow);
+        
+        clone.removePathElement(task);
+        assertFalse(clone.containsPathElement(task));
+        assertTrue(root.containsPathElement(task));
+    }
+    
+    @Test
+    public void testStreamingPaths() throws IOException {
+        List<PathContext> expected = PathFinderFactory.getInstance(this.getClass().getResourceAsStream("/BPMN2-InclusiveSplit.bpmn2")).findPaths();
+        
+        final List<String> visited = new ArrayList<String>();
+        ParsedProcessModel model = new DefinitionsCache(1).get(TestUtils.readResource("/BPMN2-InclusiveSplit.bpmn2"));
+        StreamingPathFinder finder = PathFinderFactory.getInstance(model);
+        finder.findPaths(new PathVisitor() {
+            
+            public void visit(PathContext path) {
+                assertNotNull(path.getPathId());
+                visited.add(path.getPathId());
+            }
+        });
+        
+        assertEquals(expected.size(), visited.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getPathId(), visited.get(i));
+        }
+    }
+    
+    @Test
+    public void testParallelPathFinder() throws IOException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+        try {
+            String[] resources = new String[] {"/BPMN2-MultipleStartEventProcess.bpmn2", "/BPMN2-InclusiveSplit.bpmn2", 
+                    "/BPMN2-ParallelGatewayWithSignal.bpmn2", "/BPMN2-TwoExclusiveGateways.bpmn2", 
+                    "/BPMN2-ExclusiveGatewayLoop.bpmn2", "/BPMN2-ExclusiveGatewayWithSignalEvent.bpmn2"};
+            for (String resource : resources) {
+                List<String> expectedIds = getPathIds(PathFinderFactory.getInstance(
+                        this.getClass().getResourceAsStream(resource)).findPaths());
+                
+                Definitions definitions = BPMN2Utils.getDefinitions(this.getClass().getResourceAsStream(resource));
+                assertEquals(resource, expectedIds, getPathIds(PathFinderFactory.getParallelInstance(definitions, executor).findPaths()));
+                
+                // model shared through the cache, paths are visited as they are found
+                ParsedProcessModel model = new DefinitionsCache(1).get(TestUtils.readResource(resource));
+                final List<PathContext> visited = new ArrayList<PathContext>();
+                PathFinderFactory.getParallelInstance(model, executor).findPaths(new PathVisitor() {
+                    
+                    public void visit(PathContext path) {
+                        visited.add(path);
+                    }
+                });
+                assertEquals(resource, expectedIds, getPathIds(visited));
+            }
+            
+            // branches of exclusive gateways are explored as separate tasks
+            long tasks = executor.getTaskCount();
+            Definitions definitions = BPMN2Utils.getDefinitions(this.getClass().getResourceAsStream("/BPMN2-TwoExclusiveGateways.bpmn2"));
+            PathFinderFactory.getParallelInstance(definitions, executor).findPaths();
+            assertTrue(executor.getTaskCount() - tasks > 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    // ids of the paths in fixed order, every path counts
+    private static List<String> getPathIds(List<PathContext> paths) {
+        List<String> ids = new ArrayList<String>();
+        for (PathContext path : paths) {
+            ids.add(path.getPathId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+    
+    @Test
+    public void testPathIdDoesNotDependOnOrder() {
+        Bpmn2Factory factory = Bpmn2Factory.eINSTANCE;
+        FlowElement task = factory.createUserTask();
+        task.setId("_1");
+        FlowElement flow = factory.createSequenceFlow();
+        flow.setId("_1-_2");
+        FlowElement other = factory.createUserTask();
+        other.setId("_2");
+        
+        PathContextManager manager = new PathContextManager();
+        PathContext root = manager.getContextFromStack();
+        PathContext first = manager.cloneGiven(root);
+        first.addPathElement(task);
+        first.addPathElement(flow);
+        PathContext second = manager.cloneGiven(root);
+        second.addPathElement(flow);
+        second.addPathElement(task);
+        PathContext third = manager.cloneGiven(root);
+        third.addPathElement(task);
+        third.addPathElement(other);
+        third.removePathElement(other);
+        third.addPathElement(flow);
+        
+        assertEquals(first.getPathHash(), second.getPathHash());
+        assertEquals(first.getPathHash(), third.getPathHash());
+        
+        manager.finalizePath(first);
+        manager.finalizePath(second);
+        manager.finalizePath(third);
+        
+        // every traversal is reported, identical paths share the id
+        assertEquals(3, manager.getCompletePaths().size());
+        assertEquals("Path" + Long.toHexString(PathElementIndex.hash("_1") + PathElementIndex.hash("_1-_2")), 
+                first.getPathId());
+        assertEquals(first.getPathId(), second.getPathId());
+        assertEquals(first.getPathId(), third.getPathId());
+    }
+    
+    @Test
+    public void testDuplicateTraversalsKeepTheirCount() {
+        // each boundary event explores the normal flow and all previous boundary events again,
+        // so the path of the first boundary event is traversed twice
+        List<String> expectedIds = new ArrayList<String>();
+        expectedIds.add("_1");
+        expectedIds.add("SequenceFlow_1");
+        expectedIds.add("UserTask_1");
+        expectedIds.add("BoundaryEvent_1");
+        expectedIds.add("SequenceFlow_5");
+        expectedIds.add("ScriptTask_1");
+        expectedIds.add("SequenceFlow_4");
+        expectedIds.add("EndEvent_2");
+        
+        List<PathContext> paths = PathFinderFactory.getInstance(this.getClass().getResourceAsStream("/BPMN2-TwoBoundaryEventsOnTask.bpmn2")).findPaths();
+        
+        // 3 separate paths per boundary event and 3 combinations of the 3 outgoing flows
+        assertEquals(8, paths.size());
+        Set<String> ids = new HashSet<String>();
+        List<PathContext> duplicates = new ArrayList<PathContext>();
+        for (PathContext path : paths) {
+            if (!ids.add(path.getPathId())) {
+                duplicates.add(path);
+            }
+        }
+        assertEquals(7, ids.size());
+        assertEquals(1, duplicates.size());
+        assertTrue(TestUtils.matchExpected(duplicates, expectedIds));
+    }
 }
@@ -0,0 +1,39 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jbpm.simulation.impl.RuleBaseCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.api.KieBase;
+import org.kie.internal.io.ResourceFactory;
+
+public class RuleBaseCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRuleBaseCache() throws IOException {
+        File storage = folder.newFolder("kbase");
+        
+        RuleBaseCache cache = new RuleBaseCache(2, storage);
+        KieBase kbase = cache.get(ResourceFactory.newClassPathResource("default.simulation.rules.drl"));
+        assertTrue(kbase == cache.get(ResourceFactory.newClassPathResource("default.simulation.rules.drl")));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, storage.listFiles().length);
+        
+        // another cache, e.g. after restart, loads serialized rule base instead of compiling it
+        RuleBaseCache restarted = new RuleBaseCache(2, storage);
+        KieBase loaded = restarted.get(ResourceFactory.newClassPathResource("default.simulation.rules.drl"));
+        assertEquals(1, restarted.getLoads());
+        assertNotNull(loaded.newKieSession());
+    }
+}
@@ -0,0 +1,68 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.SamplingAggregationRepository;
+import org.jbpm.simulation.impl.events.HTAggregatedSimulationEvent;
+import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
+import org.junit.Test;
+
+public class SamplingAggregationRepositoryTest {
+
+    @Test
+    public void testSamplingAggregationRepository() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        SamplingAggregationRepository repo = new SamplingAggregationRepository(5, 3, 42);
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 150, 2000, EngineMode.NATIVE, repo);
+        
+        // aggregates are still exact
+        for (AggregatedSimulationEvent event : repo.getAggregatedEvents()) {
+            if (event instanceof HTAggregatedSimulationEvent) {
+                assertEquals(150, ((HTAggregatedSimulationEvent) event).getNumberOfInstances());
+            }
+        }
+        assertTrue(repo.getSampledActivities().contains("First"));
+        assertTrue(repo.getSampledActivities().contains("Second"));
+        for (SimulationEvent event : repo.getActivitySample("First")) {
+            assertEquals("First", ((HumanTaskActivitySimulationEvent) event).getActivityName());
+        }
+        assertEquals(5, repo.getActivitySample("First").size());
+        assertEquals(0, repo.getActivitySample("Unknown").size());
+        
+        assertEquals(1, repo.getSampledPaths().size());
+        String pathId = repo.getSampledPaths().iterator().next();
+        List<List<SimulationEvent>> traces = repo.getPathSample(pathId);
+        assertEquals(3, traces.size());
+        for (List<SimulationEvent> trace : traces) {
+            // start, two user tasks, end and process instance end
+            assertEquals(5, trace.size());
+            long instanceId = trace.get(0).getProcessInstanceId();
+            for (SimulationEvent event : trace) {
+                assertEquals(instanceId, event.getProcessInstanceId());
+            }
+        }
+    }
+    
+    @Test
+    public void testTracesLongerThanLimitAreDropped() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        SamplingAggregationRepository repo = new SamplingAggregationRepository(5, 3, 42);
+        // every trace has 5 events
+        repo.setMaxTraceLength(3);
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, repo);
+        
+        assertEquals(0, repo.getSampledPaths().size());
+        assertEquals(5, repo.getActivitySample("First").size());
+        
+        // returned sets are copies
+        repo.getSampledActivities().clear();
+        assertTrue(repo.getSampledActivities().contains("First"));
+    }
+}
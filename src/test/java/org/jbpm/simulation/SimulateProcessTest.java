@@ -5,31 +5,51 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.math.random.RandomData;
 import org.drools.core.command.runtime.rule.InsertElementsCommand;
 import org.drools.simulation.fluent.simulation.SimulationFluent;
 import org.drools.simulation.fluent.simulation.impl.DefaultSimulationFluent;
+import org.eclipse.bpmn2.Definitions;
 import org.jbpm.simulation.converter.SimulationFilterPathFormatConverter;
+import org.jbpm.simulation.helper.HardCodedSimulationDataProvider;
 import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.BPMN2PathFinderImpl;
 import org.jbpm.simulation.impl.BPMN2SimulationDataProvider;
+import org.jbpm.simulation.impl.DefinitionsCache;
+import org.jbpm.simulation.impl.InMemorySimulationRepository;
+import org.jbpm.simulation.impl.ParsedProcessModel;
+import org.jbpm.simulation.impl.PathProbabilityPruner;
+import org.jbpm.simulation.impl.ReplicationSummary;
 import org.jbpm.simulation.impl.SimulateProcessPathCommand;
 import org.jbpm.simulation.impl.SimulationPath;
 import org.jbpm.simulation.impl.WorkingMemorySimulationRepository;
 import org.jbpm.simulation.impl.events.ActivitySimulationEvent;
 import org.jbpm.simulation.impl.events.AggregatedEndEventSimulationEvent;
 import org.jbpm.simulation.impl.events.AggregatedProcessSimulationEvent;
+import org.jbpm.simulation.impl.events.AggregatedReplicationSimulationEvent;
 import org.jbpm.simulation.impl.events.EndSimulationEvent;
 import org.jbpm.simulation.impl.events.GenericSimulationEvent;
+import org.jbpm.simulation.impl.events.HTAggregatedSimulationEvent;
 import org.jbpm.simulation.impl.events.HumanTaskActivitySimulationEvent;
 import org.jbpm.simulation.impl.events.ProcessInstanceEndSimulationEvent;
+import org.jbpm.simulation.impl.time.RandomStreams;
+import org.jbpm.simulation.util.BPMN2Utils;
+import org.jbpm.simulation.util.SimulationConstants;
+import org.jbpm.workflow.core.node.HumanTaskNode;
 import org.junit.Test;
 import org.kie.api.builder.ReleaseId;
 import org.kie.api.io.ResourceType;
@@ -118,6 +138,13 @@ public class SimulateProcessTest {
         
         event = wmRepo.getAggregatedEvents().get(3);
         assertNotNull(event.getProperty("minExecutionTime"));
+        // percentiles are provided by the rules as well
+        for (AggregatedSimulationEvent aggregated : wmRepo.getAggregatedEvents()) {
+            if (aggregated instanceof HTAggregatedSimulationEvent) {
+                assertNotNull(aggregated.getProperty(SimulationConstants.P95_EXECUTION_TIME));
+                assertNotNull(aggregated.getProperty(SimulationConstants.P95_WAIT_TIME));
+            }
+        }
         wmRepo.close();
         
     }
@@ -147,8 +174,8 @@ public class SimulateProcessTest {
             if (event instanceof AggregatedProcessSimulationEvent) {
                 Map<String, Integer> numberOfInstancePerPath = ((AggregatedProcessSimulationEvent) event).getPathNumberOfInstances();
                 assertNotNull(numberOfInstancePerPath);
-                assertTrue(3 == numberOfInstancePerPath.get("Path800898475"));
-                assertTrue(7 == numberOfInstancePerPath.get("Path-960633761"));
+                assertTrue(3 == numberOfInstancePerPath.get("Path546f11e0f46c1a26"));
+                assertTrue(7 == numberOfInstancePerPath.get("Path5de28f2b65a657b7"));
             }
         }
         wmRepo.close();
@@ -258,8 +285,8 @@ public class SimulateProcessTest {
             if (event instanceof AggregatedProcessSimulationEvent) {
                 Map<String, Integer> numberOfInstancePerPath = ((AggregatedProcessSimulationEvent) event).getPathNumberOfInstances();
                 assertNotNull(numberOfInstancePerPath);
-                assertTrue(1 == numberOfInstancePerPath.get("Path800898475"));
-                assertTrue(4 == numberOfInstancePerPath.get("Path-960633761"));
+                assertTrue(1 == numberOfInstancePerPath.get("Path546f11e0f46c1a26"));
+                assertTrue(4 == numberOfInstancePerPath.get("Path5de28f2b65a657b7"));
             }
         }
         
@@ -413,4 +440,347 @@ public class SimulateProcessTest {
         assertEquals(37, wmRepo.getEvents().size());
         wmRepo.close();
     }
+    
+    @Test
+    public void testSimulationRunnerNativeEngine() throws IOException {
+        
+        InputStreamReader in = new InputStreamReader(this.getClass().getResourceAsStream("/BPMN2-TwoUserTasks.bpmn2"));
+        
+        String out = new String();
+        BufferedReader br = new BufferedReader(in);
+        for(String line = br.readLine(); line != null; line = br.readLine()) 
+          out += line;
+
+        SimulationRepository repo = SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, false, EngineMode.NATIVE, "default.simulation.rules.drl");
+        assertNotNull(repo);
+        
+        WorkingMemorySimulationRepository wmRepo = (WorkingMemorySimulationRepository) repo;
+        wmRepo.fireAllRules();
+        
+        assertEquals(4, wmRepo.getAggregatedEvents().size());
+        assertEquals(50, wmRepo.getEvents().size());
+        assertNotNull(wmRepo.getSimulationInfo().getProcessName());
+        wmRepo.close();
+    }
+    
+    @Test
+    public void testSimulationRunnerNativeEngineWithGateway() throws IOException {
+        
+        InputStreamReader in = new InputStreamReader(this.getClass().getResourceAsStream("/BPMN-SimpleExclusiveGatewayProcess.bpmn2"));
+        
+        String out = new String();
+        BufferedReader br = new BufferedReader(in);
+        for(String line = br.readLine(); line != null; line = br.readLine()) 
+          out += line;
+
+        SimulationRepository repo = SimulationRunner.runSimulation("defaultPackage.test", out, 10, 2000, false, EngineMode.NATIVE, "default.simulation.rules.drl");
+        assertNotNull(repo);
+        
+        WorkingMemorySimulationRepository wmRepo = (WorkingMemorySimulationRepository) repo;
+        wmRepo.fireAllRules();
+        assertEquals(5, wmRepo.getAggregatedEvents().size());
+        assertEquals(70, wmRepo.getEvents().size());
+        
+        int instances = 0;
+        for (AggregatedSimulationEvent event : wmRepo.getAggregatedEvents()) {
+            if (event instanceof AggregatedProcessSimulationEvent) {
+                Map<String, Integer> numberOfInstancePerPath = ((AggregatedProcessSimulationEvent) event).getPathNumberOfInstances();
+                assertEquals(2, numberOfInstancePerPath.size());
+                for (Integer perPath : numberOfInstancePerPath.values()) {
+                    instances += perPath;
+                }
+            }
+        }
+        assertEquals(10, instances);
+        wmRepo.close();
+    }
+    
+    @Test
+    public void testSimulationRunnerNativeEngineWithBoundaryEvent() throws IOException {
+        
+        InputStreamReader in = new InputStreamReader(this.getClass().getResourceAsStream("/BPMN2-SimpleWithBoundaryEvent.bpmn2"));
+        
+        String out = new String();
+        BufferedReader br = new BufferedReader(in);
+        for(String line = br.readLine(); line != null; line = br.readLine()) 
+          out += line;
+
+        SimulationRepository repo = SimulationRunner.runSimulation("defaultPackage.test", out, 5, 2000, true, EngineMode.NATIVE, "onevent.simulation.rules.drl");
+        assertNotNull(repo);
+        
+        WorkingMemorySimulationRepository wmRepo = (WorkingMemorySimulationRepository) repo;
+
+        assertEquals(25, wmRepo.getAggregatedEvents().size());
+        assertEquals(30, wmRepo.getEvents().size());
+        wmRepo.close();
+    }
+    
+    @Test
+    public void testBatchedRuleFiring() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-SimpleWithBoundaryEvent.bpmn2");
+        
+        WorkingMemorySimulationRepository wmRepo = new WorkingMemorySimulationRepository(true, "onevent.simulation.rules.drl");
+        wmRepo.setBatchSize(1000);
+        SimulationRunner.runSimulation("defaultPackage.test", out, 5, 2000, EngineMode.NATIVE, wmRepo);
+        
+        // nothing fired yet as the batch is not full
+        assertEquals(0, ((List<?>) wmRepo.getSession().getGlobal("simulation")).size());
+        
+        // reading results fires rules for the pending batch, process aggregate is calculated once instead of per instance
+        int aggregated = wmRepo.getAggregatedEvents().size();
+        assertTrue(aggregated > 0);
+        assertTrue(aggregated < 25);
+        assertEquals(30, wmRepo.getEvents().size());
+        wmRepo.close();
+    }
+    
+    @Test
+    public void testSimulationRunnerPooledSessions() throws IOException {
+        
+        InputStreamReader in = new InputStreamReader(this.getClass().getResourceAsStream("/BPMN-SimpleExclusiveGatewayProcess.bpmn2"));
+        
+        String out = new String();
+        BufferedReader br = new BufferedReader(in);
+        for(String line = br.readLine(); line != null; line = br.readLine()) 
+          out += line;
+
+        SimulationRepository repo = SimulationRunner.runSimulation("defaultPackage.test", out, 10, 2000, false, EngineMode.POOLED, "default.simulation.rules.drl");
+        assertNotNull(repo);
+        
+        WorkingMemorySimulationRepository wmRepo = (WorkingMemorySimulationRepository) repo;
+        wmRepo.fireAllRules();
+        assertEquals(5, wmRepo.getAggregatedEvents().size());
+        assertEquals(70, wmRepo.getEvents().size());
+        assertEquals("test", wmRepo.getSimulationInfo().getProcessName());
+        wmRepo.close();
+    }
+    
+    @Test
+    public void testParallelSimulationRunner() throws IOException {
+        
+        InputStreamReader in = new InputStreamReader(this.getClass().getResourceAsStream("/BPMN2-TwoUserTasks.bpmn2"));
+        
+        String out = new String();
+        BufferedReader br = new BufferedReader(in);
+        for(String line = br.readLine(); line != null; line = br.readLine()) 
+          out += line;
+
+        ParallelSimulationRunner runner = new ParallelSimulationRunner();
+        try {
+            ReplicationSummary summary = runner.runReplications("BPMN2-TwoUserTasks", out, 10, 2000, 4);
+            assertNotNull(summary);
+            assertEquals(4, summary.getNumberOfReplications());
+            assertEquals(2, summary.getActivities().size());
+            
+            AggregatedReplicationSimulationEvent process = (AggregatedReplicationSimulationEvent) summary.getProcess();
+            assertEquals(4, process.getNumberOfReplications());
+            assertEquals(40, process.getNumberOfInstances());
+            assertTrue(process.getLowerConfidenceBound() <= process.getMeanExecutionTime());
+            assertTrue(process.getUpperConfidenceBound() >= process.getMeanExecutionTime());
+            
+            for (AggregatedSimulationEvent activity : summary.getActivities()) {
+                assertEquals(4L, activity.getProperty("numberOfReplications"));
+                assertEquals(40L, activity.getProperty("numberOfInstances"));
+            }
+        } finally {
+            runner.shutdown();
+        }
+    }
+    
+    @Test
+    public void testParallelSimulationRunnerReproducibleWithSeed() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+
+        ParallelSimulationRunner runner = new ParallelSimulationRunner();
+        runner.setSeed(42L);
+        try {
+            ReplicationSummary first = runner.runReplications("BPMN2-TwoUserTasks", out, 10, 2000, 3);
+            ReplicationSummary second = runner.runReplications("BPMN2-TwoUserTasks", out, 10, 2000, 3);
+            assertEquals(42L, first.getMasterSeed());
+            
+            AggregatedReplicationSimulationEvent firstProcess = (AggregatedReplicationSimulationEvent) first.getProcess();
+            AggregatedReplicationSimulationEvent secondProcess = (AggregatedReplicationSimulationEvent) second.getProcess();
+            assertEquals(firstProcess.getMeanExecutionTime(), secondProcess.getMeanExecutionTime(), 0);
+            assertEquals(firstProcess.getStdDevExecutionTime(), secondProcess.getStdDevExecutionTime(), 0);
+        } finally {
+            runner.shutdown();
+        }
+    }
+    
+    @Test
+    public void testRandomStreams() {
+        RandomStreams streams = new RandomStreams(7L);
+        
+        RandomData first = streams.newStream("_2");
+        RandomData same = new RandomStreams(7L).newStream("_2");
+        RandomData otherNode = streams.newStream("_3");
+        RandomData otherReplication = streams.forReplication(1).newStream("_2");
+        
+        long value = first.nextLong(0, Long.MAX_VALUE - 1);
+        assertEquals(value, same.nextLong(0, Long.MAX_VALUE - 1));
+        assertFalse(value == otherNode.nextLong(0, Long.MAX_VALUE - 1));
+        assertFalse(value == otherReplication.nextLong(0, Long.MAX_VALUE - 1));
+    }
+    
+    @Test
+    public void testRulesAggregateWholeRun() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        WorkingMemorySimulationRepository exact = (WorkingMemorySimulationRepository) SimulationRunner.runSimulation(
+                "BPMN2-TwoUserTasks", out, 150, 2000, false, EngineMode.NATIVE, "default.simulation.rules.drl");
+        exact.fireAllRules();
+        for (AggregatedSimulationEvent event : exact.getAggregatedEvents()) {
+            if (event instanceof HTAggregatedSimulationEvent) {
+                assertEquals(150, ((HTAggregatedSimulationEvent) event).getNumberOfInstances());
+            } else if (event instanceof AggregatedProcessSimulationEvent) {
+                int instances = 0;
+                for (Integer pathInstances : ((AggregatedProcessSimulationEvent) event).getPathNumberOfInstances().values()) {
+                    instances += pathInstances;
+                }
+                assertEquals(150, instances);
+            }
+        }
+        exact.close();
+    }
+    
+    @Test
+    public void testFilteredEventListeners() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        final List<SimulationEvent> firstTaskEvents = new ArrayList<SimulationEvent>();
+        SimulationEventListener firstTask = new SimulationEventListener() {
+            
+            public SimulationEventFilter getFilter() {
+                return new SimulationEventFilter().addNodeId("_6810E312-3AC1-4F95-82F6-90C3A18E8DE6");
+            }
+            
+            public void onEvent(SimulationEvent event) {
+                firstTaskEvents.add(event);
+            }
+        };
+        final long[] taskTotals = new long[2];
+        SimulationEventListener tasks = new PrimitiveSimulationEventListener() {
+            
+            public SimulationEventFilter getFilter() {
+                return new SimulationEventFilter().addEventType(HumanTaskActivitySimulationEvent.class);
+            }
+            
+            public void onEvent(SimulationEvent event) {
+                fail("Primitive listener must not receive events");
+            }
+            
+            public void onNodeEvent(Class<? extends SimulationEvent> eventType, String processId, long processInstanceId, 
+                    String nodeId, String nodeName, long startTime, long endTime, long duration, long waitTime, 
+                    double resourceCost, double resourceUtilization) {
+                taskTotals[0]++;
+                taskTotals[1] += duration;
+            }
+            
+            public void onProcessInstanceEnd(String processId, long processInstanceId, long startTime, long endTime, String pathId) {
+                fail("Process instance end is not subscribed");
+            }
+        };
+        // repository only needs process level totals
+        InMemorySimulationRepository repo = new InMemorySimulationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, repo, null, 
+                new SimulationEventFilter().addEventType(ProcessInstanceEndSimulationEvent.class), firstTask, tasks);
+        
+        assertEquals(10, repo.getEvents().size());
+        for (SimulationEvent event : repo.getEvents()) {
+            assertTrue(event instanceof ProcessInstanceEndSimulationEvent);
+        }
+        assertEquals(10, firstTaskEvents.size());
+        for (SimulationEvent event : firstTaskEvents) {
+            assertEquals("First", ((HumanTaskActivitySimulationEvent) event).getActivityName());
+        }
+        assertEquals(20, taskTotals[0]);
+        assertTrue(taskTotals[1] > 0);
+    }
+    
+    @Test
+    public void testMostProbablePaths() throws IOException {
+        String gateway = TestUtils.readResource("/BPMN-SimpleExclusiveGatewayProcess.bpmn2");
+        ParsedProcessModel model = DefinitionsCache.getInstance().get(gateway);
+        SimulationDataProvider provider = new BPMN2SimulationDataProvider(model);
+        
+        List<SimulationPath> all = PathFinderFactory.getInstance(model).findPaths(
+                new SimulationFilterPathFormatConverter(provider));
+        assertEquals(2, all.size());
+        
+        List<SimulationPath> best = PathFinderFactory.getInstance(model, provider, 1, 0).findPaths(
+                new SimulationFilterPathFormatConverter(provider));
+        assertEquals(1, best.size());
+        assertEquals(all.get(0).getPathId(), best.get(0).getPathId());
+        
+        double threshold = (all.get(0).getProbability() + all.get(1).getProbability()) / 2;
+        List<SimulationPath> likely = PathFinderFactory.getInstance(model, provider, 0, threshold).findPaths(
+                new SimulationFilterPathFormatConverter(provider));
+        assertEquals(1, likely.size());
+        assertEquals(all.get(0).getPathId(), likely.get(0).getPathId());
+        
+        assertEquals(0, PathFinderFactory.getInstance(model, provider, 0, 1.1).findPaths().size());
+    }
+    
+    @Test
+    public void testMostProbablePathsOfInclusiveGateway() throws IOException {
+        Definitions definitions = BPMN2Utils.getDefinitions(SimulateProcessTest.class.getResourceAsStream("/BPMN2-InclusiveSplit.bpmn2"));
+        final Map<String, Double> probabilities = new HashMap<String, Double>();
+        probabilities.put("_2-_3", 60.0);
+        probabilities.put("_2-_4", 30.0);
+        probabilities.put("_2-_5", 10.0);
+        SimulationDataProvider provider = new HardCodedSimulationDataProvider() {
+
+            public double calculatePathProbability(SimulationPath path) {
+                double probability = 1;
+                for (String id : path.getSequenceFlowsIds()) {
+                    if (probabilities.containsKey(id)) {
+                        probability *= probabilities.get(id) / 100;
+                    }
+                }
+                path.setProbability(probability);
+                return probability;
+            }
+        };
+        
+        // full enumeration ordered from the most probable path
+        final PathProbabilityPruner scorer = new PathProbabilityPruner(provider, 0, 0);
+        List<PathContext> all = new BPMN2PathFinderImpl(definitions).findPaths();
+        assertEquals(7, all.size());
+        Collections.sort(all, new Comparator<PathContext>() {
+
+            public int compare(PathContext o1, PathContext o2) {
+                return Double.compare(scorer.getProbability(o2), scorer.getProbability(o1));
+            }
+        });
+        
+        PathProbabilityPruner pruner = new PathProbabilityPruner(provider, 2, 0);
+        BPMN2PathFinderImpl finder = new BPMN2PathFinderImpl(definitions);
+        finder.setPathPruner(pruner);
+        List<PathContext> best = finder.findPaths();
+        
+        assertEquals(2, best.size());
+        assertTrue(pruner.getPruned() > 0);
+        for (int i = 0; i < best.size(); i++) {
+            assertEquals(all.get(i).getPathId(), best.get(i).getPathId());
+            assertEquals(scorer.getProbability(all.get(i)), pruner.getProbability(best.get(i)), 0.0001);
+        }
+    }
+    
+    @Test
+    public void testTimeGeneratorCachedPerNode() {
+        SimulationContext context = SimulationContextFactory.newContext(new HardCodedSimulationDataProvider());
+        
+        HumanTaskNode node = new HumanTaskNode();
+        node.setMetaData("UniqueId", "_2");
+        HumanTaskNode other = new HumanTaskNode();
+        other.setMetaData("UniqueId", "_3");
+        
+        TimeGenerator generator = context.getTimeGenerator(node);
+        assertTrue(generator == context.getTimeGenerator(node));
+        assertFalse(generator == context.getTimeGenerator(other));
+        
+        // new data provider invalidates generators
+        context.setDataProvider(new HardCodedSimulationDataProvider());
+        assertFalse(generator == context.getTimeGenerator(node));
+    }
 }
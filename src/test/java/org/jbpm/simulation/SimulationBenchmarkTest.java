@@ -0,0 +1,96 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Logger;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.WorkingMemorySimulationRepository;
+import org.junit.Test;
+
+/**
+ * Benchmarks are not executed as part of regular build, enable them with -Dsimulation.benchmark=true
+ */
+public class SimulationBenchmarkTest {
+    
+    private static final Logger logger = Logger.getLogger(SimulationBenchmarkTest.class.getName());
+    
+    private static final int WARMUP_INSTANCES = 200;
+    private static final int INSTANCES = 2000;
+
+    @Test
+    public void benchmarkSessionPooling() throws IOException {
+        assumeTrue(Boolean.getBoolean("simulation.benchmark"));
+        String bpmn2 = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        // warm up
+        runSimulation(bpmn2, EngineMode.DROOLS, WARMUP_INSTANCES);
+        runSimulation(bpmn2, EngineMode.POOLED, WARMUP_INSTANCES);
+        
+        report("drools", runSimulation(bpmn2, EngineMode.DROOLS, INSTANCES));
+        report("pooled", runSimulation(bpmn2, EngineMode.POOLED, INSTANCES));
+        report("native", runSimulation(bpmn2, EngineMode.NATIVE, INSTANCES));
+    }
+    
+    @Test
+    public void benchmarkBatchedRuleFiring() throws IOException {
+        assumeTrue(Boolean.getBoolean("simulation.benchmark"));
+        String bpmn2 = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        // warm up
+        runBatchedSimulation(bpmn2, 100, WARMUP_INSTANCES);
+        
+        int[] batchSizes = new int[] {1, 100, 10000};
+        for (int batchSize : batchSizes) {
+            long[] result = runBatchedSimulation(bpmn2, batchSize, INSTANCES);
+            double seconds = result[1] / 1000000000d;
+            logger.info("BENCHMARK [batch " + batchSize + "] events/sec: " + (long) (result[0] / seconds));
+        }
+    }
+    
+    protected long[] runBatchedSimulation(String bpmn2, int batchSize, int instances) {
+        WorkingMemorySimulationRepository repo = new WorkingMemorySimulationRepository(true, "onevent.simulation.rules.drl");
+        repo.setBatchSize(batchSize);
+        long start = System.nanoTime();
+        
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", bpmn2, instances, 2000, EngineMode.NATIVE, repo);
+        repo.flush();
+        
+        long took = System.nanoTime() - start;
+        long events = repo.getEvents().size();
+        repo.close();
+        
+        return new long[] {events, took};
+    }
+    
+    protected long[] runSimulation(String bpmn2, EngineMode mode, int instances) {
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        
+        SimulationRepository repo = SimulationRunner.runSimulation("BPMN2-TwoUserTasks", bpmn2, instances, 2000, false, mode, "default.simulation.rules.drl");
+        
+        long took = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+        ((WorkingMemorySimulationRepository) repo).close();
+        
+        return new long[] {instances, took, allocated};
+    }
+    
+    protected void report(String name, long[] result) {
+        double seconds = result[1] / 1000000000d;
+        logger.info("BENCHMARK [" + name + "] instances/sec: " + (long) (result[0] / seconds) 
+                + " allocation rate: " + (result[2] < 0 ? "n/a" : (long) (result[2] / seconds / (1024 * 1024)) + " MB/sec")
+                + " allocated per instance: " + (result[2] < 0 ? "n/a" : (result[2] / result[0]) + " bytes"));
+    }
+    
+    protected long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
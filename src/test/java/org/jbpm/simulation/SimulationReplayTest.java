@@ -0,0 +1,120 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jbpm.simulation.AsyncSimulationRepositoryTest.FailingSimulationRepository;
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.InMemorySimulationRepository;
+import org.jbpm.simulation.impl.StreamingAggregationRepository;
+import org.jbpm.simulation.impl.events.GenericSimulationEvent;
+import org.jbpm.simulation.impl.WorkingMemorySimulationRepository;
+import org.jbpm.simulation.impl.events.HTAggregatedSimulationEvent;
+import org.junit.Test;
+
+public class SimulationReplayTest {
+
+    @Test
+    public void testReplayWithDifferentAggregation() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        InMemorySimulationRepository raw = new InMemorySimulationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, raw);
+        
+        SimulationReplay replay = new SimulationReplay();
+        replay.setPartitions(3);
+        
+        List<WorkingMemorySimulationRepository> rules = replay.replay(raw.getEvents(), raw.getSimulationInfo(), 
+                new SimulationRepositoryFactory<WorkingMemorySimulationRepository>() {
+
+            public WorkingMemorySimulationRepository newRepository(int partition) {
+                return new WorkingMemorySimulationRepository("default.simulation.rules.drl");
+            }
+        });
+        int aggregated = 0;
+        int events = 0;
+        for (WorkingMemorySimulationRepository partition : rules) {
+            partition.fireAllRules();
+            aggregated += partition.getAggregatedEvents().size();
+            events += partition.getEvents().size();
+            partition.close();
+        }
+        assertEquals(4, aggregated);
+        assertEquals(50, events);
+        
+        List<StreamingAggregationRepository> streaming = replay.replay(raw.getEvents(), raw.getSimulationInfo(), 
+                new SimulationRepositoryFactory<StreamingAggregationRepository>() {
+
+            public StreamingAggregationRepository newRepository(int partition) {
+                return new StreamingAggregationRepository();
+            }
+        });
+        StreamingAggregationRepository merged = new StreamingAggregationRepository();
+        for (StreamingAggregationRepository partition : streaming) {
+            merged.merge(partition);
+        }
+        assertEquals(4, merged.getAggregatedEvents().size());
+        for (AggregatedSimulationEvent event : merged.getAggregatedEvents()) {
+            if (event instanceof HTAggregatedSimulationEvent) {
+                assertEquals(10, ((HTAggregatedSimulationEvent) event).getNumberOfInstances());
+            }
+        }
+    }
+    
+    @Test(timeout = 10000)
+    public void testReplayWithFailingRepository() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        InMemorySimulationRepository raw = new InMemorySimulationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, raw);
+        
+        SimulationReplay replay = new SimulationReplay();
+        replay.setPartitions(2);
+        replay.setBufferSize(1);
+        try {
+            replay.replay(raw.getEvents(), raw.getSimulationInfo(), 
+                    new SimulationRepositoryFactory<FailingSimulationRepository>() {
+
+                public FailingSimulationRepository newRepository(int partition) {
+                    return new FailingSimulationRepository();
+                }
+            });
+            fail("Failure of the repository must be reported");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+    
+    @Test
+    public void testReplayDoesNotModifyEvents() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        InMemorySimulationRepository raw = new InMemorySimulationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, raw);
+        
+        SimulationReplay replay = new SimulationReplay();
+        replay.setPartitions(2);
+        List<WorkingMemorySimulationRepository> rules = replay.replay(raw.getEvents(), raw.getSimulationInfo(), 
+                new SimulationRepositoryFactory<WorkingMemorySimulationRepository>() {
+
+            public WorkingMemorySimulationRepository newRepository(int partition) {
+                // these rules mark events as used and attach aggregated events to them
+                return new WorkingMemorySimulationRepository(true, "onevent.simulation.rules.drl");
+            }
+        });
+        for (WorkingMemorySimulationRepository partition : rules) {
+            partition.close();
+        }
+        
+        for (SimulationEvent event : raw.getEvents()) {
+            assertFalse(((GenericSimulationEvent) event).isUsed());
+            assertNull(((GenericSimulationEvent) event).getAggregatedEvent());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.jbpm.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jbpm.simulation.helper.TestUtils;
+import org.jbpm.simulation.impl.StreamingAggregationRepository;
+import org.jbpm.simulation.impl.events.AggregatedProcessSimulationEvent;
+import org.jbpm.simulation.impl.events.HTAggregatedSimulationEvent;
+import org.jbpm.simulation.util.SimulationConstants;
+import org.junit.Test;
+
+public class StreamingAggregationRepositoryTest {
+
+    @Test
+    public void testStreamingAggregationRepository() throws IOException {
+        String out = TestUtils.readResource("/BPMN2-TwoUserTasks.bpmn2");
+        
+        StreamingAggregationRepository repo = new StreamingAggregationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, repo);
+        
+        List<AggregatedSimulationEvent> aggregated = repo.getAggregatedEvents();
+        assertEquals(4, aggregated.size());
+        
+        AggregatedProcessSimulationEvent process = repo.getAggregatedProcessEvent();
+        assertEquals("BPMN2-TwoUserTasks", process.getProcessId());
+        int instances = 0;
+        for (Integer pathInstances : process.getPathNumberOfInstances().values()) {
+            instances += pathInstances;
+        }
+        assertEquals(10, instances);
+        
+        for (AggregatedSimulationEvent event : aggregated) {
+            if (event instanceof HTAggregatedSimulationEvent) {
+                HTAggregatedSimulationEvent htEvent = (HTAggregatedSimulationEvent) event;
+                assertEquals(10, htEvent.getNumberOfInstances());
+                assertTrue(htEvent.getMinExecutionTime() <= htEvent.getAvgExecutionTime());
+                assertTrue(htEvent.getAvgExecutionTime() <= htEvent.getMaxExecutionTime());
+                assertEquals(10, repo.getDurationStatistics(htEvent.getActivityName()).getCount());
+                
+                Double p50 = (Double) htEvent.getProperty(SimulationConstants.P50_EXECUTION_TIME);
+                Double p99 = (Double) htEvent.getProperty(SimulationConstants.P99_EXECUTION_TIME);
+                assertNotNull(htEvent.getProperty(SimulationConstants.P95_WAIT_TIME));
+                assertTrue(p50 <= p99);
+                assertTrue(p99 <= htEvent.getMaxExecutionTime());
+            }
+        }
+        assertNotNull(process.getProperty(SimulationConstants.P95_EXECUTION_TIME));
+        
+        // merging with another run of the same size doubles all counters
+        StreamingAggregationRepository other = new StreamingAggregationRepository();
+        SimulationRunner.runSimulation("BPMN2-TwoUserTasks", out, 10, 2000, EngineMode.NATIVE, other);
+        repo.merge(other);
+        for (AggregatedSimulationEvent event : repo.getAggregatedEvents()) {
+            if (event instanceof HTAggregatedSimulationEvent) {
+                assertEquals(20, ((HTAggregatedSimulationEvent) event).getNumberOfInstances());
+            }
+        }
+    }
+}
@@ -34,4 +34,22 @@ public class TimeGeneratorTest {
         System.out.println(generator.generateTime());
         System.out.println(generator.generateTime());
     }
+    
+    @Test
+    public void testUnseededGeneratorsAreIndependent() {
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(SimulationConstants.DISTRIBUTION_TYPE, "random");
+        data.put(SimulationConstants.MIN, 0L);
+        data.put(SimulationConstants.MAX, Long.MAX_VALUE / 2);
+        
+        // created within the same millisecond
+        TimeGenerator first = TimeGeneratorFactory.newTimeGenerator(data);
+        TimeGenerator second = TimeGeneratorFactory.newTimeGenerator(data);
+        
+        boolean different = false;
+        for (int i = 0; i < 10 && !different; i++) {
+            different = first.generateTime() != second.generateTime();
+        }
+        assertTrue(different);
+    }
 }
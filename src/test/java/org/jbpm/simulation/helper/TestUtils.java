@@ -4,6 +4,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -230,6 +231,18 @@ public class TestUtils {
         return kieModule.getReleaseId();
     }
     
+    public static String readResource(String name) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(TestUtils.class.getResourceAsStream(name)));
+        StringBuilder out = new StringBuilder();
+        try {
+            for(String line = br.readLine(); line != null; line = br.readLine()) 
+                out.append(line);
+        } finally {
+            br.close();
+        }
+        return out.toString();
+    }
+    
     protected static String readResourceContent(Resource resource) {
         StringBuilder contents = new StringBuilder();
         BufferedReader reader = null;
@@ -1,6 +1,7 @@
 package org.jbpm.simulation.impl.ht;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.Calendar;
 import java.util.Date;
@@ -8,6 +9,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.lang.time.DurationFormatUtils;
+import org.jbpm.simulation.SimulationContext;
 import org.jbpm.simulation.SimulationContextFactory;
 import org.jbpm.simulation.SimulationDataProvider;
 import org.jbpm.simulation.impl.SimulationPath;
@@ -106,6 +108,21 @@ public class StaffPoolImplTest {
         assertEquals(285*60*1000, waitTime);
     }
     
+    @Test
+    public void testNodesWithoutUniqueIdHaveOwnKeys() {
+        // pools derive their random stream from the node key
+        HumanTaskNode node = new HumanTaskNode();
+        node.setId(1);
+        HumanTaskNode other = new HumanTaskNode();
+        other.setId(2);
+        
+        assertEquals("node:1", SimulationContext.getNodeKey(node));
+        assertFalse(SimulationContext.getNodeKey(node).equals(SimulationContext.getNodeKey(other)));
+        
+        other.setMetaData("UniqueId", "_2");
+        assertEquals("_2", SimulationContext.getNodeKey(other));
+    }
+    
     private class TestSimulationDataProvider implements SimulationDataProvider {
         
         private Map<String, Object> properties = null;
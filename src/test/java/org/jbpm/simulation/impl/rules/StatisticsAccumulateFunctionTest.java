@@ -0,0 +1,34 @@
+package org.jbpm.simulation.impl.rules;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+
+import org.junit.Test;
+
+public class StatisticsAccumulateFunctionTest {
+
+    @Test
+    public void testAccumulateAndReverse() throws Exception {
+        StatisticsAccumulateFunction function = new StatisticsAccumulateFunction();
+        Serializable context = function.createContext();
+        function.init(context);
+        
+        for (long i = 1; i <= 500; i++) {
+            function.accumulate(context, i);
+        }
+        AccumulatedStatistics stats = (AccumulatedStatistics) function.getResult(context);
+        assertEquals(500, stats.getCount());
+        assertEquals(1, stats.getMin(), 0);
+        assertEquals(250.5, stats.getMean(), 0.000001);
+        assertEquals(500, stats.getMax(), 0);
+        
+        function.reverse(context, 1L);
+        function.reverse(context, 500L);
+        stats = (AccumulatedStatistics) function.getResult(context);
+        assertEquals(498, stats.getCount());
+        assertEquals(2, stats.getMin(), 0);
+        assertEquals(250.5, stats.getMean(), 0.000001);
+        assertEquals(499, stats.getMax(), 0);
+    }
+}
@@ -0,0 +1,92 @@
+package org.jbpm.simulation.impl.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100000; i++) {
+            histogram.recordValue(i * 7);
+        }
+        
+        assertEquals(100000, histogram.getTotalCount());
+        assertEquals(7, histogram.getMin());
+        assertEquals(700000, histogram.getMax());
+        assertWithinOnePercent(350000, histogram.getValueAtPercentile(50));
+        assertWithinOnePercent(630000, histogram.getValueAtPercentile(90));
+        assertWithinOnePercent(665000, histogram.getValueAtPercentile(95));
+        assertWithinOnePercent(693000, histogram.getValueAtPercentile(99));
+        assertEquals(700000, histogram.getValueAtPercentile(100));
+    }
+    
+    @Test
+    public void testMergeHistograms() {
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (long i = 0; i < 5000; i++) {
+            long value = (i * 7919) % 100000;
+            all.recordValue(value);
+            if (i % 2 == 0) {
+                first.recordValue(value);
+            } else {
+                second.recordValue(value);
+            }
+        }
+        first.merge(second);
+        
+        assertEquals(all.getTotalCount(), first.getTotalCount());
+        assertEquals(all.getMin(), first.getMin());
+        assertEquals(all.getMax(), first.getMax());
+        double[] percentiles = new double[]{50, 90, 95, 99};
+        for (double percentile : percentiles) {
+            assertEquals(all.getValueAtPercentile(percentile), first.getValueAtPercentile(percentile));
+        }
+    }
+    
+    @Test
+    public void testRemoveValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.recordValue(i);
+        }
+        histogram.removeValue(1);
+        histogram.removeValue(1000);
+        
+        assertEquals(998, histogram.getTotalCount());
+        assertEquals(2, histogram.getMin());
+        assertTrue(histogram.getMax() >= 999 && histogram.getMax() < 1000);
+        assertWithinOnePercent(500, histogram.getValueAtPercentile(50));
+        
+        for (long i = 2; i <= 999; i++) {
+            histogram.removeValue(i);
+        }
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(-1, histogram.getValueAtPercentile(50));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveValueNotRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(10);
+        histogram.removeValue(20);
+    }
+    
+    @Test
+    public void testParsePercentile() {
+        assertEquals(99, LatencyHistogram.parsePercentile("p99ExecutionTime", "ExecutionTime"), 0);
+        assertEquals(99.9, LatencyHistogram.parsePercentile("p99.9WaitTime", "WaitTime"), 0);
+        assertEquals(-1, LatencyHistogram.parsePercentile("maxExecutionTime", "ExecutionTime"), 0);
+        assertEquals(-1, LatencyHistogram.parsePercentile("p101ExecutionTime", "ExecutionTime"), 0);
+        assertEquals(-1, new LatencyHistogram().getValueAtPercentile(50));
+    }
+    
+    private void assertWithinOnePercent(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(expected - actual) <= expected / 100);
+    }
+}
@@ -0,0 +1,48 @@
+package org.jbpm.simulation.impl.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.math.stat.descriptive.SummaryStatistics;
+import org.junit.Test;
+
+public class OnlineStatisticsTest {
+
+    @Test
+    public void testStatisticsMatchSummaryStatistics() {
+        OnlineStatistics stats = new OnlineStatistics();
+        SummaryStatistics expected = new SummaryStatistics();
+        for (int i = 0; i < 1000; i++) {
+            double value = (i * 37) % 101;
+            stats.addValue(value);
+            expected.addValue(value);
+        }
+        
+        assertEquals(expected.getN(), stats.getCount());
+        assertEquals(expected.getMin(), stats.getMin(), 0);
+        assertEquals(expected.getMax(), stats.getMax(), 0);
+        assertEquals(expected.getMean(), stats.getMean(), 0.000001);
+        assertEquals(expected.getVariance(), stats.getVariance(), 0.000001);
+    }
+    
+    @Test
+    public void testMergeStatistics() {
+        OnlineStatistics all = new OnlineStatistics();
+        OnlineStatistics first = new OnlineStatistics();
+        OnlineStatistics second = new OnlineStatistics();
+        for (int i = 0; i < 500; i++) {
+            all.addValue(i);
+            if (i % 3 == 0) {
+                first.addValue(i);
+            } else {
+                second.addValue(i);
+            }
+        }
+        first.merge(second);
+        
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getMin(), first.getMin(), 0);
+        assertEquals(all.getMax(), first.getMax(), 0);
+        assertEquals(all.getMean(), first.getMean(), 0.000001);
+        assertEquals(all.getVariance(), first.getVariance(), 0.000001);
+    }
+}
@@ -0,0 +1,45 @@
+package org.jbpm.simulation.impl.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ReservoirSampleTest {
+
+    @Test
+    public void testSampleIsBounded() {
+        ReservoirSample<Integer> sample = new ReservoirSample<Integer>(5, new Random(42));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(sample.offer(i));
+        }
+        assertEquals(3, sample.getItems().size());
+        
+        for (int i = 3; i < 10000; i++) {
+            sample.offer(i);
+        }
+        assertEquals(5, sample.getItems().size());
+        assertEquals(10000, sample.getSeen());
+    }
+    
+    @Test
+    public void testSampleIsUniform() {
+        int[] hits = new int[100];
+        Random random = new Random(7);
+        for (int run = 0; run < 10000; run++) {
+            ReservoirSample<Integer> sample = new ReservoirSample<Integer>(10, random);
+            for (int i = 0; i < hits.length; i++) {
+                sample.offer(i);
+            }
+            for (Integer item : sample.getItems()) {
+                hits[item]++;
+            }
+        }
+        // every item is expected in 10% of the samples
+        for (int i = 0; i < hits.length; i++) {
+            assertEquals(1000, hits[i], 150);
+        }
+    }
+}